@@ -12,28 +12,45 @@ package org.jboss.tools.bpel.runtimes;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Hashtable;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.osgi.service.debug.DebugOptions;
+import org.eclipse.osgi.service.debug.DebugOptionsListener;
+import org.eclipse.osgi.service.debug.DebugTrace;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
+import org.jboss.tools.bpel.runtimes.module.BPELDescriptorReconciler;
+import org.jboss.tools.bpel.runtimes.module.BPELModuleFactoryDelegate;
+import org.jboss.tools.bpel.runtimes.module.BPELProjectIndex;
+import org.jboss.tools.bpel.runtimes.module.BPELPublishDescriptor;
 import org.osgi.framework.BundleContext;
 
 /**
  * The main plugin class to be used in the desktop.
  */
-public class RuntimesPlugin extends AbstractUIPlugin {
+public class RuntimesPlugin extends AbstractUIPlugin implements DebugOptionsListener {
 
 	public static final String PLUGIN_ID = "org.jboss.tools.bpel.runtimes"; //$NON-NLS-1$
 	
+	// The trace option for the publish measurements, see .options
+	public static final String TRACE_PUBLISH = "/debug/publish"; //$NON-NLS-1$
+	public static boolean DEBUG_PUBLISH = false;
+	private static DebugTrace trace;
+	
 	//The shared instance.
 	private static RuntimesPlugin plugin;
 	
 	private boolean imagesInitialized = false;
 	
+	// Give the workbench time to start before deployed versions are checked
+	private static final long RECONCILE_DELAY = 60 * 1000;
+	
 	/**
 	 * The constructor.
 	 */
@@ -48,6 +65,25 @@ public class RuntimesPlugin extends AbstractUIPlugin {
 	@Override
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
+		Hashtable<String, String> props = new Hashtable<String, String>();
+		props.put(DebugOptions.LISTENER_SYMBOLICNAME, PLUGIN_ID);
+		context.registerService(DebugOptionsListener.class.getName(), this, props);
+		new BPELDescriptorReconciler().schedule(RECONCILE_DELAY);
+	}
+
+	/**
+	 * Called by the platform whenever the trace options change
+	 */
+	public void optionsChanged(DebugOptions options) {
+		trace = options.newDebugTrace(PLUGIN_ID);
+		DEBUG_PUBLISH = options.getBooleanOption(PLUGIN_ID + TRACE_PUBLISH, false);
+	}
+
+	/**
+	 * @return the trace of this plugin, or null before the trace options are known
+	 */
+	public static DebugTrace getTrace() {
+		return trace;
 	}
 
 	/**
@@ -55,6 +91,10 @@ public class RuntimesPlugin extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		Job.getJobManager().cancel(BPELDescriptorReconciler.class);
+		Job.getJobManager().cancel(BPELModuleFactoryDelegate.DISCOVERY_FAMILY);
+		BPELPublishDescriptor.flush();
+		BPELProjectIndex.flush();
 		super.stop(context);
 		plugin = null;
 	}
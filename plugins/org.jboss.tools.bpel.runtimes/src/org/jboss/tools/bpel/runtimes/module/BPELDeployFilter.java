@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFile;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+
+/**
+ * Decides which files of a BPEL module are deployed.
+ * 
+ * The rules come from a .deployignore file in the content root, one glob 
+ * pattern per line, matched against the module relative path of each file. 
+ * A pattern without a slash matches a name at any depth, a pattern ending 
+ * in a slash matches everything below a folder of that name, <code>*</code> 
+ * does not cross folders and <code>**</code> does. A pattern starting with 
+ * <code>!</code> deploys the files it matches after all. Lines starting with 
+ * <code>#</code> are comments. The last matching pattern wins.
+ * 
+ * Diagram files and the .deployignore file itself are never deployed
+ * unless a pattern includes them again.
+ */
+public class BPELDeployFilter {
+	public static final String FILE_NAME = ".deployignore"; //$NON-NLS-1$
+	public static final String[] DEFAULT_EXCLUDES = new String[] { "*.bpelex", FILE_NAME }; //$NON-NLS-1$
+	
+	private List<Pattern> patterns = new ArrayList<Pattern>();
+	private List<Boolean> includes = new ArrayList<Boolean>();
+	
+	/**
+	 * A filter with only the default exclusions
+	 */
+	public BPELDeployFilter() {
+		for( int i = 0; i < DEFAULT_EXCLUDES.length; i++ )
+			addPattern(DEFAULT_EXCLUDES[i]);
+	}
+	
+	/**
+	 * Load the filter of a component from the .deployignore file in its root folder
+	 * 
+	 * @param component
+	 * @return the filter, with the default exclusions if there is no such file
+	 */
+	public static BPELDeployFilter load(IVirtualComponent component) {
+		BPELDeployFilter filter = new BPELDeployFilter();
+		if( component == null )
+			return filter;
+		IVirtualFile vf = component.getRootFolder().getFile(FILE_NAME);
+		IFile file = vf == null ? null : vf.getUnderlyingFile();
+		if( file == null || !file.exists())
+			return filter;
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(file.getContents(true), file.getCharset()));
+			String line;
+			while( (line = reader.readLine()) != null )
+				filter.addPattern(line);
+		} catch(CoreException ce) {
+			RuntimesPlugin.log(ce);
+		} catch(IOException ioe) {
+			RuntimesPlugin.log(ioe);
+		} finally {
+			if( reader != null ) {
+				try {
+					reader.close();
+				} catch(IOException ioe) {
+					// ignore
+				}
+			}
+		}
+		return filter;
+	}
+	
+	/**
+	 * Add a rule, as it would appear on a line of the .deployignore file
+	 * 
+	 * @param line
+	 */
+	public void addPattern(String line) {
+		String glob = line.trim();
+		if( glob.length() == 0 || glob.startsWith("#")) //$NON-NLS-1$
+			return;
+		boolean include = glob.startsWith("!"); //$NON-NLS-1$
+		if( include )
+			glob = glob.substring(1);
+		boolean folder = glob.endsWith("/"); //$NON-NLS-1$
+		if( folder )
+			glob = glob.substring(0, glob.length() - 1);
+		if( glob.startsWith("/")) //$NON-NLS-1$
+			glob = glob.substring(1);
+		else if( glob.indexOf('/') == -1 )
+			glob = "**/" + glob; //$NON-NLS-1$
+		if( glob.length() == 0 || glob.equals("**/")) //$NON-NLS-1$
+			return;
+		if( folder )
+			glob = glob + "/**"; //$NON-NLS-1$
+		patterns.add(Pattern.compile(toRegex(glob)));
+		includes.add(Boolean.valueOf(include));
+	}
+	
+	/**
+	 * @param modulePath the module relative path of a file, including its name
+	 * @return true if the file is deployed
+	 */
+	public boolean isIncluded(IPath modulePath) {
+		String path = modulePath.makeRelative().toString();
+		for( int i = patterns.size() - 1; i >= 0; i-- ) {
+			if( patterns.get(i).matcher(path).matches())
+				return includes.get(i).booleanValue();
+		}
+		return true;
+	}
+	
+	private static String toRegex(String glob) {
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < glob.length(); i++ ) {
+			char c = glob.charAt(i);
+			if( c == '*' && glob.startsWith("**/", i)) { //$NON-NLS-1$
+				sb.append("(?:.*/)?"); //$NON-NLS-1$
+				i += 2;
+			} else if( c == '*' && glob.startsWith("**", i)) { //$NON-NLS-1$
+				sb.append(".*"); //$NON-NLS-1$
+				i++;
+			} else if( c == '*' ) {
+				sb.append("[^/]*"); //$NON-NLS-1$
+			} else if( c == '?' ) {
+				sb.append("[^/]"); //$NON-NLS-1$
+			} else if( "\\.[]{}()+-^$|".indexOf(c) != -1 ) { //$NON-NLS-1$
+				sb.append('\\').append(c);
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import org.eclipse.wst.common.componentcore.internal.flat.AbstractFlattenParticipant;
+import org.eclipse.wst.common.componentcore.internal.flat.FlatVirtualComponent.FlatComponentTaskModel;
+import org.eclipse.wst.common.componentcore.internal.flat.IFlatFile;
+import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+
+/**
+ * Leaves the files excluded by the module's {@link BPELDeployFilter} 
+ * out of the flattened module, as they are found, so they are 
+ * never added to the archive or copied to the server.
+ */
+public class BPELDeployFilterParticipant extends AbstractFlattenParticipant {
+	private BPELDeployFilter filter;
+	
+	public BPELDeployFilterParticipant(BPELDeployFilter filter) {
+		this.filter = filter;
+	}
+	
+	@Override
+	public boolean shouldAddExportableFile(IVirtualComponent rootComponent,
+			IVirtualComponent currentComponent, FlatComponentTaskModel dataModel,
+			IFlatFile file) {
+		// referenced components keep their own content
+		if( currentComponent != null && !currentComponent.equals(rootComponent))
+			return true;
+		return filter.isIncluded(file.getModuleRelativePath().append(file.getName()));
+	}
+}
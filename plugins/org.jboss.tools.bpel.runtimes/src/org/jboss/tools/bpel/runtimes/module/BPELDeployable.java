@@ -1,11 +1,56 @@
 package org.jboss.tools.bpel.runtimes.module;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.wst.common.componentcore.internal.flat.IFlattenParticipant;
 import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.eclipse.wst.server.core.util.ModuleFolder;
 import org.eclipse.wst.web.internal.deployables.FlatComponentDeployable;
 
+/**
+ * The deployable of a BPEL project. 
+ * 
+ * The flattened members are built once and then kept up to date by 
+ * applying resource deltas to them, see {@link #applyDelta(IResourceDelta)}.
+ */
 public class BPELDeployable extends FlatComponentDeployable {
+	// Changes which do not alter the content of a resource
+	private static final int IGNORED_FLAGS = IResourceDelta.MARKERS | IResourceDelta.SYNC;
+	// Beyond this many changed paths only a full change is reported
+	private static final int MAX_CHANGES = 10000;
+	// How far a resource change reaches into the module
+	private static final int NO_IMPACT = 0;
+	private static final int CONTENT_IMPACT = 1;
+	private static final int FULL_IMPACT = 2;
+	
+	private IPath[] metadataPaths = new IPath[0];
+	private volatile IPath[] contentRoots;
+	private volatile BPELDeployFilter deployFilter;
+	
+	private final Object treeLock = new Object();
+	// The live member tree, null until members are first asked for
+	private MemberNode tree;
+	private IModuleResource[] treeMembers;
+	private long stamp = 0;
+	private long rebuildStamp = 0;
+	// module relative path -> the stamp it last changed at, oldest first
+	private final Map<IPath, Long> changes = new LinkedHashMap<IPath, Long>();
 
 	public BPELDeployable(IProject project) {
 		super(project);
@@ -15,23 +60,425 @@ public class BPELDeployable extends FlatComponentDeployable {
 		super(project, aComponent);
 	}
 	
+	/**
+	 * Set the project relative paths of the files describing the component, 
+	 * a change to which affects the whole module
+	 * 
+	 * @param paths
+	 */
+	public void setMetadataPaths(IPath[] paths) {
+		this.metadataPaths = paths;
+		this.contentRoots = null;
+	}
+	
+	/*
+	 * How a resource change in this module's project affects the members of the 
+	 * module. Only added and removed resources, and content changes, inside the 
+	 * content roots of the component count, or any change to the component metadata.
+	 */
+	private int getImpact(IResourceDelta projectDelta) {
+		if( projectDelta.getKind() != IResourceDelta.CHANGED )
+			return FULL_IMPACT;
+		final IPath[] roots = getContentRoots();
+		final int[] impact = new int[] { NO_IMPACT };
+		try {
+			projectDelta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta delta) {
+					if( impact[0] == FULL_IMPACT )
+						return false;
+					IPath path = delta.getProjectRelativePath();
+					if( isMetadataPath(path) && isRelevant(delta)) {
+						// the content roots may have moved
+						contentRoots = null;
+						impact[0] = FULL_IMPACT;
+						return false;
+					}
+					boolean inRoot = false;
+					boolean aboveRoot = false;
+					for( int i = 0; i < roots.length; i++ ) {
+						inRoot |= roots[i].isPrefixOf(path);
+						aboveRoot |= path.isPrefixOf(roots[i]);
+					}
+					if( inRoot && isRelevant(delta)) {
+						// keep looking, a metadata change may follow
+						impact[0] = CONTENT_IMPACT;
+						return false;
+					}
+					// only descend into folders which may contain a root or a metadata file
+					return inRoot || aboveRoot || path.segmentCount() == 0 
+							|| isMetadataPath(path) || isMetadataParent(path);
+				}
+			});
+		} catch(CoreException ce) {
+			return FULL_IMPACT;
+		}
+		return impact[0];
+	}
+	
+	private static boolean isRelevant(IResourceDelta delta) {
+		switch( delta.getKind()) {
+		case IResourceDelta.ADDED:
+		case IResourceDelta.REMOVED:
+			return true;
+		case IResourceDelta.CHANGED:
+			return delta.getFlags() != 0 && (delta.getFlags() & ~IGNORED_FLAGS) != 0;
+		default:
+			return false;
+		}
+	}
+	
+	private boolean isMetadataPath(IPath path) {
+		for( int i = 0; i < metadataPaths.length; i++ ) {
+			if( metadataPaths[i].equals(path))
+				return true;
+		}
+		return false;
+	}
+	
+	private boolean isMetadataParent(IPath path) {
+		for( int i = 0; i < metadataPaths.length; i++ ) {
+			if( path.isPrefixOf(metadataPaths[i]))
+				return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * The project relative folders backing the root of the component
+	 */
+	private IPath[] getContentRoots() {
+		IPath[] roots = contentRoots;
+		if( roots == null ) {
+			if( getComponent() == null )
+				return new IPath[] { Path.EMPTY };
+			IContainer[] folders = getComponent().getRootFolder().getUnderlyingFolders();
+			roots = new IPath[folders.length];
+			for( int i = 0; i < folders.length; i++ )
+				roots[i] = folders[i].getProjectRelativePath();
+			contentRoots = roots;
+		}
+		return roots;
+	}
+	
 	@Override
 	public boolean shouldCache() {
 		return true;
 	}
 	
+	@Override
+	public IModuleResource[] members() throws CoreException {
+		synchronized(treeLock) {
+			if( tree == null ) {
+				tree = MemberNode.build(super.members());
+				rebuilt();
+			}
+			if( treeMembers == null )
+				treeMembers = tree.getMembers();
+			return treeMembers.clone();
+		}
+	}
+	
+	@Override
+	public void clearCache() {
+		synchronized(treeLock) {
+			tree = null;
+			treeMembers = null;
+			deployFilter = null;
+			super.clearCache();
+		}
+	}
+	
+	/**
+	 * Bring the members up to date with a resource change in this module's project.
+	 * Files and folders which were added, removed or changed inside the content root
+	 * are updated one by one. A change to the component metadata, or a layout this 
+	 * cannot map, drops the members so they are flattened again on next use.
+	 * 
+	 * @param projectDelta the delta of this module's project
+	 * @return true if the members changed
+	 */
+	public boolean applyDelta(IResourceDelta projectDelta) {
+		int impact = getImpact(projectDelta);
+		if( impact == NO_IMPACT )
+			return false;
+		synchronized(treeLock) {
+			IPath[] roots = getContentRoots();
+			// overlapping roots may hide each other's files
+			if( impact == FULL_IMPACT || tree == null || roots.length != 1 ) {
+				clearCache();
+				return true;
+			}
+			MemberUpdater updater = new MemberUpdater(roots[0]);
+			try {
+				projectDelta.accept(updater);
+			} catch(CoreException ce) {
+				updater.complete = false;
+			}
+			if( !updater.complete )
+				clearCache();
+			return true;
+		}
+	}
+	
+	/**
+	 * @return the current member stamp, which increases with every change to the members
+	 */
+	public long getMemberStamp() {
+		synchronized(treeLock) {
+			return stamp;
+		}
+	}
+	
+	/**
+	 * Get the module relative paths of the members which were added,
+	 * changed or removed after the given stamp
+	 * 
+	 * @param since a stamp from {@link #getMemberStamp()}
+	 * @return the changed paths, or null if the members were rebuilt
+	 * 	since then and everything must be considered changed
+	 */
+	public IPath[] getChangedPaths(long since) {
+		synchronized(treeLock) {
+			if( tree == null || since < rebuildStamp )
+				return null;
+			List<IPath> result = new ArrayList<IPath>();
+			for( Map.Entry<IPath, Long> e : changes.entrySet()) {
+				if( e.getValue().longValue() > since )
+					result.add(e.getKey());
+			}
+			return result.toArray(new IPath[result.size()]);
+		}
+	}
+	
+	/**
+	 * Get the members which were added or changed after the given stamp
+	 * 
+	 * @param since a stamp from {@link #getMemberStamp()}
+	 * @return the members, or null if the members were rebuilt 
+	 * 	since then and everything must be considered changed
+	 */
+	public IModuleResource[] getChangedMembers(long since) {
+		synchronized(treeLock) {
+			IPath[] paths = getChangedPaths(since);
+			if( paths == null )
+				return null;
+			List<IModuleResource> result = new ArrayList<IModuleResource>();
+			for( int i = 0; i < paths.length; i++ ) {
+				MemberNode n = tree.find(paths[i]);
+				if( n != null )
+					result.add(n.resource);
+			}
+			return result.toArray(new IModuleResource[result.size()]);
+		}
+	}
+	
+	/**
+	 * Check whether a resource inside the content root belongs in the module.
+	 * Team private and hidden resources are left out, as they are when flattening,
+	 * and so are the files excluded by the deploy filter.
+	 * 
+	 * @param resource
+	 * @param modulePath the path of the resource within the module
+	 * @return true if the resource is a member
+	 */
+	protected boolean isMember(IResource resource, IPath modulePath) {
+		if( resource.isTeamPrivateMember() || resource.isHidden())
+			return false;
+		return resource.getType() != IResource.FILE || getDeployFilter().isIncluded(modulePath);
+	}
+	
+	/**
+	 * @return the filter deciding which files of this module are deployed
+	 */
+	public BPELDeployFilter getDeployFilter() {
+		BPELDeployFilter filter = deployFilter;
+		if( filter == null ) {
+			filter = BPELDeployFilter.load(getComponent());
+			deployFilter = filter;
+		}
+		return filter;
+	}
+	
+	/*
+	 * Called with the tree lock held
+	 */
+	private void rebuilt() {
+		changes.clear();
+		rebuildStamp = ++stamp;
+	}
+	
+	/*
+	 * Called with the tree lock held
+	 */
+	private void changed(IPath modulePath) {
+		changes.remove(modulePath);
+		changes.put(modulePath, Long.valueOf(++stamp));
+		if( changes.size() > MAX_CHANGES )
+			rebuilt();
+	}
+	
+	/*
+	 * Applies a project delta to the member tree, with the tree lock held
+	 */
+	private class MemberUpdater implements IResourceDeltaVisitor {
+		private IPath root;
+		private boolean complete = true;
+		
+		public MemberUpdater(IPath root) {
+			this.root = root;
+		}
+		
+		public boolean visit(IResourceDelta delta) {
+			if( !complete )
+				return false;
+			IPath path = delta.getProjectRelativePath();
+			if( !root.isPrefixOf(path))
+				return path.isPrefixOf(root);
+			if( path.segmentCount() == root.segmentCount()) {
+				// the root itself came or went
+				if( delta.getKind() != IResourceDelta.CHANGED )
+					complete = false;
+				return complete;
+			}
+			IPath modulePath = path.removeFirstSegments(root.segmentCount()).makeRelative();
+			if( modulePath.segmentCount() == 1 && BPELDeployFilter.FILE_NAME.equals(modulePath.lastSegment())) {
+				// the filter changed, which may affect any file
+				complete = false;
+				return false;
+			}
+			IResource resource = delta.getResource();
+			MemberNode parent = tree.find(modulePath.removeLastSegments(1));
+			MemberNode node = parent == null ? null : parent.getChild(modulePath.lastSegment());
+			switch( delta.getKind()) {
+			case IResourceDelta.REMOVED:
+				if( node != null ) {
+					parent.removeChild(node);
+					changed(modulePath);
+					clearMembers(parent);
+				}
+				return false;
+			case IResourceDelta.ADDED:
+				if( parent == null || !isMember(resource, modulePath))
+					return false;
+				parent.addChild(MemberNode.create(resource, modulePath));
+				changed(modulePath);
+				clearMembers(parent);
+				// the members of an added folder follow as added children
+				return resource.getType() != IResource.FILE;
+			case IResourceDelta.CHANGED:
+				if( resource.getType() != IResource.FILE )
+					return true;
+				if( parent == null || !isRelevant(delta) || !isMember(resource, modulePath))
+					return false;
+				// a new module file picks up the new modification stamp
+				parent.addChild(MemberNode.create(resource, modulePath));
+				changed(modulePath);
+				clearMembers(parent);
+				return false;
+			default:
+				return false;
+			}
+		}
+		
+		private void clearMembers(MemberNode parent) {
+			if( parent == tree )
+				treeMembers = null;
+			else
+				parent.updateFolder();
+		}
+	}
+	
+	/*
+	 * A node of the live member tree
+	 */
+	private static class MemberNode {
+		private IModuleResource resource;
+		private Map<String, MemberNode> children;
+		
+		private MemberNode(IModuleResource resource, boolean folder) {
+			this.resource = resource;
+			if( folder )
+				children = new LinkedHashMap<String, MemberNode>();
+		}
+		
+		public static MemberNode build(IModuleResource[] members) {
+			MemberNode root = new MemberNode(null, true);
+			root.addAll(members);
+			return root;
+		}
+		
+		public static MemberNode create(IResource resource, IPath modulePath) {
+			IPath parentPath = modulePath.removeLastSegments(1);
+			if( resource.getType() == IResource.FILE )
+				return new MemberNode(new ModuleFile((IFile)resource, resource.getName(), parentPath), false);
+			MemberNode n = new MemberNode(new ModuleFolder((IContainer)resource, resource.getName(), parentPath), true);
+			n.updateFolder();
+			return n;
+		}
+		
+		private void addAll(IModuleResource[] members) {
+			for( int i = 0; i < members.length; i++ ) {
+				if( members[i] instanceof IModuleFolder ) {
+					IModuleFolder f = (IModuleFolder)members[i];
+					IContainer container = (IContainer)f.getAdapter(IContainer.class);
+					MemberNode n = new MemberNode(new ModuleFolder(container, f.getName(), f.getModuleRelativePath()), true);
+					n.addAll(f.members());
+					n.updateFolder();
+					addChild(n);
+				} else {
+					addChild(new MemberNode(members[i], false));
+				}
+			}
+		}
+		
+		public MemberNode find(IPath modulePath) {
+			MemberNode n = this;
+			for( int i = 0; i < modulePath.segmentCount() && n != null; i++ )
+				n = n.getChild(modulePath.segment(i));
+			return n;
+		}
+		
+		public MemberNode getChild(String name) {
+			return children == null || name == null ? null : children.get(name);
+		}
+		
+		public void addChild(MemberNode child) {
+			children.put(child.resource.getName(), child);
+		}
+		
+		public void removeChild(MemberNode child) {
+			children.remove(child.resource.getName());
+		}
+		
+		public IModuleResource[] getMembers() {
+			IModuleResource[] result = new IModuleResource[children.size()];
+			Iterator<MemberNode> it = children.values().iterator();
+			for( int i = 0; it.hasNext(); i++ )
+				result[i] = it.next().resource;
+			return result;
+		}
+		
+		public void updateFolder() {
+			((ModuleFolder)resource).setMembers(getMembers());
+		}
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see org.eclipse.bpel.runtimes.module.FlatComponentDeployable#getParticipants()
 	 */
 	public IFlattenParticipant[] getParticipants() {
 		/*
-		 * No work really needs to be done here. The BPEL project
-		 * doesn't need to map source in instead, it doesn't need to 
-		 * update a manifest file, it doesn't need to add in classpath dependencies, etc etc
+		 * The BPEL project doesn't need to map source in instead, 
+		 * it doesn't need to update a manifest file, it doesn't need 
+		 * to add in classpath dependencies, etc etc
 		 * 
-		 * Just standard traversals as of now. 
+		 * Standard traversals, leaving out the files which are not deployed.
 		 */
-		return super.getParticipants();
+		IFlattenParticipant[] defaults = super.getParticipants();
+		IFlattenParticipant[] result = new IFlattenParticipant[defaults.length + 1];
+		System.arraycopy(defaults, 0, result, 0, defaults.length);
+		result[defaults.length] = new BPELDeployFilterParticipant(getDeployFilter());
+		return result;
 	}
 }
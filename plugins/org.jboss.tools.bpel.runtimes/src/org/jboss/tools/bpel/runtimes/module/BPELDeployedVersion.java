@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+/**
+ * A version of a BPEL module deployed to a server, as recorded 
+ * in the {@link BPELPublishDescriptor}. 
+ * 
+ * Versions recorded before this information was kept, only have a path. 
+ * Their other values are unknown and reported as -1 or null.
+ */
+public class BPELDeployedVersion {
+	public static final long UNKNOWN = -1;
+	
+	private final String path;
+	private final String hash;
+	private final long size;
+	private final long publishStart;
+	private final long publishEnd;
+
+	/**
+	 * @param path the deployed path
+	 * @param hash the fingerprint of the module content, or null
+	 * @param size the number of bytes deployed, or -1
+	 * @param publishStart the time the publish started, or -1
+	 * @param publishEnd the time the publish finished, or -1
+	 */
+	public BPELDeployedVersion(String path, String hash, long size, long publishStart, long publishEnd) {
+		this.path = path;
+		this.hash = hash;
+		this.size = size;
+		this.publishStart = publishStart;
+		this.publishEnd = publishEnd;
+	}
+	
+	public BPELDeployedVersion(String path, String hash) {
+		this(path, hash, UNKNOWN, UNKNOWN, UNKNOWN);
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getPublishStart() {
+		return publishStart;
+	}
+
+	public long getPublishEnd() {
+		return publishEnd;
+	}
+
+	/**
+	 * @return the time taken to publish this version in milliseconds, or -1
+	 */
+	public long getDuration() {
+		if( publishStart == UNKNOWN || publishEnd == UNKNOWN )
+			return UNKNOWN;
+		return publishEnd - publishStart;
+	}
+	
+	/**
+	 * Get the time this version was deployed. For versions recorded 
+	 * without a publish time, this is taken from the timestamp in the name.
+	 * 
+	 * @return the time in milliseconds, or -1
+	 */
+	public long getTimestamp() {
+		if( publishEnd != UNKNOWN )
+			return publishEnd;
+		return BPELVersionRetentionJob.getVersionTimestamp(path);
+	}
+	
+	@Override
+	public String toString() {
+		return path;
+	}
+}
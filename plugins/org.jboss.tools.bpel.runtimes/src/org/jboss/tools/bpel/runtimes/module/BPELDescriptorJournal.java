@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only log of the changes made to a {@link BPELPublishDescriptor}
+ * since its snapshot was last written.
+ * 
+ * Each record is one line of tab separated fields, the first of which is 
+ * the record type. Records are appended in batches and each batch is 
+ * forced to disk once. A line which was only partly written before a crash
+ * has no line terminator. It is cut off the file before the journal is first
+ * read or appended to, so the next record starts on a line of its own.
+ */
+class BPELDescriptorJournal {
+	static final String ADD = "A"; //$NON-NLS-1$
+	static final String REMOVE = "R"; //$NON-NLS-1$
+	static final String REMOVE_PROJECT = "P"; //$NON-NLS-1$
+
+	private final File file;
+	private int size = 0;
+	private boolean recovered = false;
+
+	BPELDescriptorJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the number of records in the journal file
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Read all complete records from the journal file
+	 * 
+	 * @return the records, in the order they were written
+	 * @throws IOException
+	 */
+	List<String[]> read() throws IOException {
+		List<String[]> records = new ArrayList<String[]>();
+		if( file.exists()) {
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			int length = truncateTornTail(bytes);
+			String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+			int start = 0;
+			int end = content.indexOf('\n');
+			while( end != -1 ) {
+				if( end > start )
+					records.add(decode(content.substring(start, end)));
+				start = end + 1;
+				end = content.indexOf('\n', start);
+			}
+		}
+		size = records.size();
+		recovered = true;
+		return records;
+	}
+
+	/*
+	 * Cut off a partly written last line. Newlines never occur within 
+	 * an encoded character, so the bytes can be searched directly.
+	 * Returns the length of the complete records.
+	 */
+	private int truncateTornTail(byte[] bytes) throws IOException {
+		int length = bytes.length;
+		while( length > 0 && bytes[length - 1] != '\n' )
+			length--;
+		if( length < bytes.length ) {
+			RandomAccessFile raf = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+			try {
+				raf.setLength(length);
+				raf.getChannel().force(false);
+			} finally {
+				raf.close();
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Append records and force them to disk
+	 * 
+	 * @param records
+	 * @throws IOException
+	 */
+	void append(List<String[]> records) throws IOException {
+		if( records.isEmpty())
+			return;
+		if( !recovered && file.exists())
+			truncateTornTail(Files.readAllBytes(file.toPath()));
+		StringBuilder sb = new StringBuilder();
+		for( String[] r : records )
+			sb.append(encode(r)).append('\n');
+		// a failed write may leave a torn line, to be cut off by the next append
+		recovered = false;
+		FileOutputStream os = new FileOutputStream(file, true);
+		try {
+			os.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+			os.getChannel().force(false);
+		} finally {
+			os.close();
+		}
+		recovered = true;
+		size += records.size();
+	}
+
+	/**
+	 * Remove all records, once they are contained in a snapshot
+	 */
+	void clear() {
+		file.delete();
+		size = 0;
+		recovered = true;
+	}
+
+	static String encode(String[] record) {
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < record.length; i++ ) {
+			if( i > 0 )
+				sb.append('\t');
+			String field = record[i] == null ? "" : record[i]; //$NON-NLS-1$
+			for( int j = 0; j < field.length(); j++ ) {
+				char c = field.charAt(j);
+				if( c == '\\' )
+					sb.append("\\\\"); //$NON-NLS-1$
+				else if( c == '\t' )
+					sb.append("\\t"); //$NON-NLS-1$
+				else if( c == '\n' )
+					sb.append("\\n"); //$NON-NLS-1$
+				else if( c == '\r' )
+					sb.append("\\r"); //$NON-NLS-1$
+				else
+					sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	static String[] decode(String line) {
+		List<String> fields = new ArrayList<String>();
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < line.length(); i++ ) {
+			char c = line.charAt(i);
+			if( c == '\t' ) {
+				fields.add(sb.toString());
+				sb.setLength(0);
+			} else if( c == '\\' && i + 1 < line.length()) {
+				char next = line.charAt(++i);
+				sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			} else {
+				sb.append(c);
+			}
+		}
+		fields.add(sb.toString());
+		return fields.toArray(new String[fields.size()]);
+	}
+}
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.ServerCore;
+import org.jboss.ide.eclipse.as.core.server.IDeployableServer;
+import org.jboss.ide.eclipse.as.core.util.ServerConverter;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.LocalFilesystemController;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+
+/**
+ * Periodically checks the versions recorded in the {@link BPELPublishDescriptor}
+ * of each server against the deploy target, and forgets the versions which no 
+ * longer exist there, for example because the deploy folder was cleaned by hand.
+ * 
+ * Paths are checked in batches, on a small pool of threads for local targets.
+ * Nothing is forgotten while a local deploy folder can not be reached. On local
+ * targets, the deploy folders are also scanned for versions which are not 
+ * recorded at all; these are reported in the log but never deleted.
+ * 
+ * Remote targets are only checked while the server is started, and only for
+ * zipped deployments, since the filesystem controller can only tell files apart.
+ */
+public class BPELDescriptorReconciler extends Job {
+	private static final long INTERVAL = 30 * 60 * 1000;
+	private static final int BATCH_SIZE = 50;
+	// The timestamp and extension appended to the module name of each version
+	private static final String VERSION_SUFFIX = "-\\d{14}(\\.[^.]*)?"; //$NON-NLS-1$
+	private static final Pattern VERSION_NAME = Pattern.compile("(.+)" + VERSION_SUFFIX); //$NON-NLS-1$
+
+	private final Set<String> reported = Collections.synchronizedSet(new HashSet<String>());
+
+	public BPELDescriptorReconciler() {
+		super("Checking deployed BPEL versions"); //$NON-NLS-1$
+		setSystem(true);
+		setPriority(Job.DECORATE);
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == BPELDescriptorReconciler.class;
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		IServer[] servers = ServerCore.getServers();
+		monitor.beginTask(getName(), servers.length);
+		for( int i = 0; i < servers.length && !monitor.isCanceled(); i++ ) {
+			try {
+				reconcile(servers[i], monitor);
+			} catch(RuntimeException re) {
+				RuntimesPlugin.log(re);
+			}
+			monitor.worked(1);
+		}
+		monitor.done();
+		if( !monitor.isCanceled())
+			schedule(INTERVAL);
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Reconcile the descriptor of one server with its deploy target
+	 * 
+	 * @param server
+	 * @param monitor
+	 */
+	public void reconcile(IServer server, IProgressMonitor monitor) {
+		String[] projects = BPELPublishDescriptor.getProjectNames(server);
+		if( projects.length == 0 )
+			return;
+		IFilesystemController controller = BPELVersionRetentionJob.getFilesystemController(server);
+		if( controller == null )
+			return;
+		boolean local = controller instanceof LocalFilesystemController;
+		if( !local && (server.getServerState() != IServer.STATE_STARTED || !zipsDeployments(server)))
+			return;
+		// An unmounted or unreachable deploy folder would make every version look missing
+		if( local && !isDeployFolderAvailable(server))
+			return;
+
+		// Only the local controller is known to be safe to call from several threads
+		int parallelism = local ? BPELPublishSettings.getParallelism(server) : 1;
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		MultiStatus orphans = new MultiStatus(RuntimesPlugin.PLUGIN_ID, 0,
+				NLS.bind("BPEL versions found on {0} which were not published by this workspace", server.getName()), null); //$NON-NLS-1$
+		try {
+			for( int i = 0; i < projects.length && !monitor.isCanceled(); i++ ) {
+				IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projects[i]);
+				String[] paths = BPELPublishDescriptor.getDeployedPathsFromDescriptor(server, project);
+				String[] missing = findMissing(paths, controller, local, executor, monitor);
+				if( missing.length > 0 && !monitor.isCanceled())
+					BPELPublishDescriptor.removeVersionsFromDescriptor(server, project, missing);
+				if( local )
+					findOrphans(paths, orphans);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		if( orphans.getChildren().length > 0 )
+			RuntimesPlugin.getPlugin().getLog().log(orphans);
+	}
+
+	private String[] findMissing(String[] paths, final IFilesystemController controller, final boolean local,
+			ExecutorService executor, IProgressMonitor monitor) {
+		List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+		for( int i = 0; i < paths.length; i += BATCH_SIZE ) {
+			final String[] batch = Arrays.copyOfRange(paths, i, Math.min(paths.length, i + BATCH_SIZE));
+			futures.add(executor.submit(new Callable<List<String>>() {
+				public List<String> call() throws CoreException {
+					List<String> result = new ArrayList<String>();
+					for( int j = 0; j < batch.length; j++ ) {
+						if( !exists(batch[j], controller, local))
+							result.add(batch[j]);
+					}
+					return result;
+				}
+			}));
+		}
+		List<String> missing = new ArrayList<String>();
+		for( Future<List<String>> f : futures ) {
+			if( monitor.isCanceled()) {
+				f.cancel(true);
+				continue;
+			}
+			try {
+				missing.addAll(f.get());
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				monitor.setCanceled(true);
+			} catch(ExecutionException ee) {
+				// leave the batch alone if the target could not be checked
+				Throwable cause = ee.getCause();
+				RuntimesPlugin.getPlugin().getLog().log(new Status(IStatus.WARNING, RuntimesPlugin.PLUGIN_ID,
+						String.valueOf(cause.getMessage()), cause));
+			}
+		}
+		return missing.toArray(new String[missing.size()]);
+	}
+
+	/*
+	 * A local version only counts as missing when the folder it was deployed to is still there
+	 */
+	private static boolean exists(String path, IFilesystemController controller, boolean local) throws CoreException {
+		if( local ) {
+			File f = new File(path);
+			return f.exists() || f.getParentFile() == null || !f.getParentFile().isDirectory();
+		}
+		return controller.isFile(new Path(path), new NullProgressMonitor());
+	}
+
+	private static boolean isDeployFolderAvailable(IServer server) {
+		IDeployableServer ds = ServerConverter.getDeployableServer(server);
+		String folder = ds == null ? null : ds.getDeployFolder();
+		return folder == null || new File(folder).isDirectory();
+	}
+
+	private static boolean zipsDeployments(IServer server) {
+		IDeployableServer ds = ServerConverter.getDeployableServer(server);
+		return ds == null || ds.zipsWTPDeployments();
+	}
+
+	/*
+	 * Look for versions of a project in the folders its recorded versions were deployed to.
+	 * Versions are named after the module, not the project, so the names to look for are 
+	 * taken from the recorded versions. Each orphan is only reported once.
+	 */
+	private void findOrphans(String[] paths, MultiStatus orphans) {
+		Set<String> known = new HashSet<String>(Arrays.asList(paths));
+		Set<File> folders = new HashSet<File>();
+		Set<String> names = new HashSet<String>();
+		for( int i = 0; i < paths.length; i++ ) {
+			File f = new File(paths[i]);
+			if( f.getParentFile() != null )
+				folders.add(f.getParentFile());
+			Matcher m = VERSION_NAME.matcher(f.getName());
+			if( m.matches())
+				names.add(m.group(1));
+		}
+		if( names.isEmpty())
+			return;
+		Pattern pattern = getVersionPattern(names);
+		for( File folder : folders ) {
+			File[] children = folder.listFiles();
+			for( int i = 0; children != null && i < children.length; i++ ) {
+				if( pattern.matcher(children[i].getName()).matches() && !known.contains(children[i].getPath())
+						&& reported.add(children[i].getPath()))
+					orphans.add(new Status(IStatus.INFO, RuntimesPlugin.PLUGIN_ID, children[i].getPath()));
+			}
+		}
+	}
+
+	/**
+	 * Get a pattern which matches the names of the versions of the given
+	 * modules only, so that <code>Foo</code> and <code>FooBar</code> never 
+	 * match each other's versions.
+	 * 
+	 * @param moduleNames the names the versions were deployed under
+	 * @return an anchored pattern
+	 */
+	static Pattern getVersionPattern(Collection<String> moduleNames) {
+		StringBuilder sb = new StringBuilder("^(?:"); //$NON-NLS-1$
+		Iterator<String> it = moduleNames.iterator();
+		while( it.hasNext()) {
+			sb.append(Pattern.quote(it.next()));
+			if( it.hasNext())
+				sb.append('|');
+		}
+		sb.append(')').append(VERSION_SUFFIX).append('$');
+		return Pattern.compile(sb.toString());
+	}
+}
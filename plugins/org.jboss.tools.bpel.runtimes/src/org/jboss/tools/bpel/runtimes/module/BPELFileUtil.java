@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File helpers shared by the publisher and the metadata it keeps
+ */
+public class BPELFileUtil {
+	private BPELFileUtil() {
+	}
+
+	/**
+	 * Replace a file with a fully written sibling, atomically 
+	 * where the file system supports it.
+	 *
+	 * @param part the new content
+	 * @param destination the file to replace
+	 * @throws IOException
+	 */
+	public static void moveIntoPlace(File part, File destination) throws IOException {
+		try {
+			Files.move(part.toPath(), destination.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(AtomicMoveNotSupportedException amnse) {
+			Files.move(part.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
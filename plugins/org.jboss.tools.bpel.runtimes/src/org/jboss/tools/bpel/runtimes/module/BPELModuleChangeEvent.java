@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import org.eclipse.core.resources.IProject;
+
+/**
+ * A batch of changes to BPEL modules, collected over the
+ * factory's notification window.
+ * 
+ * @see IBPELModuleChangeListener
+ */
+public class BPELModuleChangeEvent {
+	private IProject[] projects;
+	private boolean all;
+
+	public BPELModuleChangeEvent(IProject[] projects, boolean all) {
+		this.projects = projects;
+		this.all = all;
+	}
+
+	/**
+	 * @return the projects whose modules changed, in no particular order
+	 */
+	public IProject[] getProjects() {
+		return projects.clone();
+	}
+
+	/**
+	 * @return true if every BPEL module may have changed, 
+	 * 	in which case the list of projects is not complete
+	 */
+	public boolean isFullRefresh() {
+		return all;
+	}
+}
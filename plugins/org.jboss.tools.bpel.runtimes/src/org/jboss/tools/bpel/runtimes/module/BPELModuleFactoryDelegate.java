@@ -11,22 +11,43 @@
 package org.jboss.tools.bpel.runtimes.module;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceChangeEvent;
 import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.common.componentcore.ComponentCore;
 import org.eclipse.wst.common.componentcore.internal.StructureEdit;
 import org.eclipse.wst.common.componentcore.internal.util.FacetedProjectUtilities;
 import org.eclipse.wst.common.componentcore.resources.IVirtualComponent;
+import org.eclipse.wst.common.componentcore.resources.IVirtualFolder;
+import org.eclipse.wst.common.project.facet.core.IFacetedProject;
+import org.eclipse.wst.common.project.facet.core.IProjectFacetVersion;
+import org.eclipse.wst.common.project.facet.core.ProjectFacetsManager;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.internal.ModuleFactory;
 import org.eclipse.wst.server.core.internal.ServerPlugin;
@@ -34,12 +55,38 @@ import org.eclipse.wst.server.core.model.ModuleDelegate;
 import org.eclipse.wst.server.core.util.ProjectModuleFactoryDelegate;
 import org.eclipse.wst.web.internal.deployables.FlatComponentDeployable;
 import org.jboss.tools.bpel.runtimes.IBPELModuleFacetConstants;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
 
 public class BPELModuleFactoryDelegate  extends ProjectModuleFactoryDelegate implements IResourceChangeListener {
-	protected Map <IModule, FlatComponentDeployable> moduleDelegates = new HashMap<IModule, FlatComponentDeployable>(5);
+	protected BPELModuleRegistry registry = new BPELModuleRegistry();
 
 	public static final String FACTORY_ID = "org.jboss.tools.bpel.runtimes.module.moduleFactory";
 
+	/**
+	 * A system property holding the time in milliseconds over which module
+	 * changes are coalesced before WTP and the listeners are notified.
+	 */
+	public static final String NOTIFICATION_DELAY_PROPERTY = "org.jboss.tools.bpel.runtimes.modulesChangedDelay"; //$NON-NLS-1$
+	public static final long DEFAULT_NOTIFICATION_DELAY = 250;
+
+	private static final List<IBPELModuleChangeListener> listeners = new CopyOnWriteArrayList<IBPELModuleChangeListener>();
+
+	private long notificationDelay = Math.max(0, Long.getLong(NOTIFICATION_DELAY_PROPERTY, DEFAULT_NOTIFICATION_DELAY));
+	private final Set<IProject> changedProjects = Collections.newSetFromMap(new ConcurrentHashMap<IProject, Boolean>());
+	private final AtomicBoolean changedAll = new AtomicBoolean(false);
+	private final AtomicBoolean notificationScheduled = new AtomicBoolean(false);
+	private final Job notificationJob = new ModulesChangedJob();
+	
+	/**
+	 * The family of the jobs discovering modules ahead of WTP, cancelled on shutdown
+	 */
+	public static final String DISCOVERY_FAMILY = FACTORY_ID + ".discovery"; //$NON-NLS-1$
+	
+	private static final int MAX_DISCOVERY_THREADS = 8;
+	private static final long DISCOVERY_TIMEOUT = 2000;
+	private final Map<IProject, DiscoveryJob> prefetched = new ConcurrentHashMap<IProject, DiscoveryJob>();
+	private final AtomicBoolean prefetchStarted = new AtomicBoolean(false);
+
 	public static BPELModuleFactoryDelegate FACTORY;
 	public static BPELModuleFactoryDelegate factoryInstance() {
 		if( FACTORY == null ) {
@@ -59,6 +106,28 @@ public class BPELModuleFactoryDelegate  extends ProjectModuleFactoryDelegate imp
 	public BPELModuleFactoryDelegate() {
 		super();
 	}
+	
+	public static void addModuleChangeListener(IBPELModuleChangeListener listener) {
+		listeners.add(listener);
+	}
+	
+	public static void removeModuleChangeListener(IBPELModuleChangeListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Set the time over which module changes are coalesced
+	 * 
+	 * @param delay a delay in milliseconds, 0 to notify as soon as possible
+	 */
+	public void setNotificationDelay(long delay) {
+		notificationDelay = Math.max(0, delay);
+	}
+	
+	public long getNotificationDelay() {
+		return notificationDelay;
+	}
+	
 	@Override
 	public void initialize() {
 		super.initialize();
@@ -69,10 +138,107 @@ public class BPELModuleFactoryDelegate  extends ProjectModuleFactoryDelegate imp
 	
 	@Override
 	protected IModule[] createModules(IProject project) {
+		// WTP asks for one project at a time, so discover the rest of the workspace meanwhile
+		if( prefetchStarted.compareAndSet(false, true))
+			prefetchModules(ResourcesPlugin.getWorkspace().getRoot().getProjects(), project);
+		DiscoveryJob job = prefetched.remove(project);
+		if( job != null ) {
+			awaitDiscovery(job);
+			IStatus result = job.getResult();
+			if( result != null && result.isOK())
+				return job.getModules();
+			job.cancel();
+		}
+		return createProjectModules(project);
+	}
+	
+	/*
+	 * A caller inside a workspace operation may hold the rule the job is waiting for,
+	 * so it never waits on the job. Otherwise it waits a bounded time, and the project
+	 * is discovered again in the caller if the job has not finished by then. A failed
+	 * discovery was logged, a cancelled one never ran.
+	 */
+	private static void awaitDiscovery(DiscoveryJob job) {
+		if( Job.getJobManager().currentRule() != null )
+			return;
+		try {
+			job.join(DISCOVERY_TIMEOUT, null);
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		} catch(OperationCanceledException oce) {
+			// discovered in the caller
+		}
+	}
+	
+	/**
+	 * Start discovering the modules of the given projects in a bounded group of jobs.
+	 * The results are picked up by {@link #createModules(IProject)}, in whatever 
+	 * order WTP asks for them, so the module list does not depend on which 
+	 * project finished first.
+	 * 
+	 * @param projects
+	 * @param skip a project the caller discovers itself, or null
+	 */
+	protected void prefetchModules(IProject[] projects, IProject skip) {
+		List<IProject> todo = new ArrayList<IProject>();
+		for( int i = 0; i < projects.length; i++ ) {
+			if( projects[i].isAccessible() && !projects[i].equals(skip) && !prefetched.containsKey(projects[i]))
+				todo.add(projects[i]);
+		}
+		if( todo.size() < 2 )
+			return;
+		int threads = Math.min(todo.size(), Math.min(MAX_DISCOVERY_THREADS, Runtime.getRuntime().availableProcessors()));
+		JobGroup group = new JobGroup("Discovering BPEL modules", threads, todo.size()); //$NON-NLS-1$
+		for( IProject p : todo ) {
+			DiscoveryJob job = new DiscoveryJob(p);
+			job.setJobGroup(group);
+			prefetched.put(p, job);
+			job.schedule();
+		}
+	}
+	
+	/**
+	 * Create the modules of a project, from the project index when possible
+	 * 
+	 * @param project
+	 * @return the modules, or null if the project has none
+	 */
+	protected IModule[] createProjectModules(IProject project) {
+		BPELProjectIndex.Entry entry = BPELProjectIndex.getEntry(project, getListenerPaths());
+		if( entry == null )
+			return discoverModules(project);
+		if( !entry.isBPELProject()) {
+			registry.setModules(project, Collections.<IModule, FlatComponentDeployable>emptyMap());
+			return null;
+		}
+		// The delegate is created when it is first asked for
+		IModule module = createModule(entry.getModuleName(), entry.getModuleName(), 
+				IBPELModuleFacetConstants.BPEL_MODULE_TYPE, IBPELModuleFacetConstants.BPEL20_VERSION, project);
+		return new IModule[] { module };
+	}
+	
+	/**
+	 * Create the modules of a project from its facets and virtual component,
+	 * and record the result in the project index
+	 * 
+	 * @param project
+	 * @return the modules, or null if the project has none
+	 */
+	protected IModule[] discoverModules(IProject project) {
+		Map<IModule, FlatComponentDeployable> delegates = discoverDelegates(project);
+		registry.setModules(project, delegates);
+		return toModules(delegates);
+	}
+	
+	/*
+	 * Create the modules and delegates of a project without registering them
+	 */
+	private Map<IModule, FlatComponentDeployable> discoverDelegates(IProject project) {
 		IVirtualComponent component = ComponentCore.createComponent(project);
 		if(component != null)
-			return createModuleDelegates(component);
-		return null;
+			return createDelegates(component);
+		BPELProjectIndex.setEntry(project, getListenerPaths(), new BPELProjectIndex.Entry());
+		return Collections.emptyMap();
 	}
 
 	@Override
@@ -80,13 +246,16 @@ public class BPELModuleFactoryDelegate  extends ProjectModuleFactoryDelegate imp
 		if (module == null)
 			return null;
 
-		ModuleDelegate md = moduleDelegates.get(module);
+		ModuleDelegate md = registry.get(module);
 //		if( md == null && ((Module)module).getInternalId().startsWith(BINARY_PREFIX))
 //			return createDelegate(module);
 		
-		if (md == null) {
-			createModules(module.getProject());
-			md = moduleDelegates.get(module);
+		IProject project = module.getProject();
+		if (md == null && project != null && !registry.isKnown(project)) {
+			// Discovery may wait for the workspace, so no lock is held meanwhile. 
+			// If another thread registered the project first, its modules are kept.
+			registry.setModulesIfAbsent(project, discoverDelegates(project));
+			md = registry.get(module);
 		}
 		return md;
 	}
@@ -102,28 +271,69 @@ public class BPELModuleFactoryDelegate  extends ProjectModuleFactoryDelegate imp
 		if(component == null){
 			return null;
 		}
-		
-		List<IModule> projectModules = new ArrayList<IModule>();
+		Map<IModule, FlatComponentDeployable> delegates = createDelegates(component);
+		registry.setModules(component.getProject(), delegates);
+		return toModules(delegates);
+	}
+	
+	private Map<IModule, FlatComponentDeployable> createDelegates(IVirtualComponent component) {
+		Map<IModule, FlatComponentDeployable> delegates = new HashMap<IModule, FlatComponentDeployable>();
 		try {
 			if (canHandleProject(component.getProject())) {
 				String type = IBPELModuleFacetConstants.BPEL_MODULE_TYPE;
 				String version = IBPELModuleFacetConstants.BPEL20_VERSION;
 				IModule module = createModule(component.getName(), component.getName(), type, version, component.getProject());
 				FlatComponentDeployable moduleDelegate = createModuleDelegate(component.getProject(), component);
-				moduleDelegates.put(module, moduleDelegate);
-				projectModules.add(module);
+				delegates.put(module, moduleDelegate);
+				BPELProjectIndex.setEntry(component.getProject(), getListenerPaths(), createIndexEntry(component));
 			} else {
-				return null;
+				BPELProjectIndex.setEntry(component.getProject(), getListenerPaths(), new BPELProjectIndex.Entry());
 			}
 		} catch (Exception e) {
 //			e.printStackTrace();
 //			J2EEPlugin.logError(e);
 		}
-		return projectModules.toArray(new IModule[projectModules.size()]);
+		return delegates;
+	}
+	
+	private static IModule[] toModules(Map<IModule, FlatComponentDeployable> delegates) {
+		if( delegates.isEmpty())
+			return null;
+		return delegates.keySet().toArray(new IModule[delegates.size()]);
+	}
+
+	private BPELProjectIndex.Entry createIndexEntry(IVirtualComponent component) {
+		IVirtualFolder root = component.getRootFolder();
+		IPath contentRoot = root.getProjectRelativePath();
+		boolean deployDescriptor = root.getFile(BPELProjectIndex.DEPLOY_DESCRIPTOR_NAME).exists();
+		return new BPELProjectIndex.Entry(component.getName(), getFacetVersion(component.getProject()),
+				contentRoot == null ? null : contentRoot.toString(), deployDescriptor);
+	}
+	
+	private String getFacetVersion(IProject project) {
+		try {
+			IFacetedProject facetedProject = ProjectFacetsManager.create(project);
+			if( facetedProject == null )
+				return null;
+			String[] ids = new String[] { IBPELModuleFacetConstants.BPEL_PROJECT_FACET, 
+					IBPELModuleFacetConstants.JBT_BPEL_PROJECT_FACET };
+			for( int i = 0; i < ids.length; i++ ) {
+				if( !ProjectFacetsManager.isProjectFacetDefined(ids[i]))
+					continue;
+				IProjectFacetVersion v = facetedProject.getInstalledVersion(ProjectFacetsManager.getProjectFacet(ids[i]));
+				if( v != null )
+					return v.getVersionString();
+			}
+		} catch(CoreException ce) {
+			// not recorded
+		}
+		return null;
 	}
 
 	protected FlatComponentDeployable createModuleDelegate(IProject project, IVirtualComponent component) {
-		return new BPELDeployable(project, component);
+		BPELDeployable deployable = new BPELDeployable(project, component);
+		deployable.setMetadataPaths(getListenerPaths());
+		return deployable;
 	}
 	
 	/**
@@ -144,32 +354,163 @@ public class BPELModuleFactoryDelegate  extends ProjectModuleFactoryDelegate imp
 	@Override
 	protected void clearCache(IProject project) {
 		super.clearCache(project);
-		List<IModule> modulesToRemove = null;
-		for (Iterator<IModule> iterator = moduleDelegates.keySet().iterator(); iterator.hasNext();) {
-			IModule module = iterator.next();
-			if (module.getProject().equals(project)) {
-				if (modulesToRemove == null) {
-					modulesToRemove = new ArrayList<IModule>();
-				}
-				modulesToRemove.add(module);
+		// a discovery started before the change may be out of date
+		DiscoveryJob job = prefetched.remove(project);
+		if( job != null )
+			job.cancel();
+		registry.removeProject(project);
+	}
+
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if( delta == null ) {
+			// a project is about to be closed or deleted
+			if( event.getResource() instanceof IProject ) {
+				IProject project = (IProject)event.getResource();
+				if( event.getType() == IResourceChangeEvent.PRE_DELETE )
+					BPELProjectIndex.removeEntry(project);
+				cleanDelegates(Collections.singleton(project));
 			}
+			return;
 		}
-		if (modulesToRemove != null) {
-			for (IModule module : modulesToRemove) {
-				moduleDelegates.remove(module);
+		// Only the projects which have BPEL modules, and only for changes to their content
+		Set<IProject> affected = new HashSet<IProject>();
+		IResourceDelta[] projects = delta.getAffectedChildren();
+		for( int i = 0; i < projects.length; i++ ) {
+			IProject project = (IProject)projects[i].getResource();
+			for( FlatComponentDeployable d : registry.getDelegates(project)) {
+				if( applyDelta(d, projects[i]))
+					affected.add(project);
 			}
 		}
+		if( !affected.isEmpty()) {
+			changedProjects.addAll(affected);
+			scheduleNotification();
+		}
 	}
-
-	public void resourceChanged(IResourceChangeEvent event) {
-		cleanAllDelegates();
+	
+	/*
+	 * BPEL deployables update their members in place, anything else is flattened again
+	 */
+	private boolean applyDelta(FlatComponentDeployable deployable, IResourceDelta projectDelta) {
+		if( deployable instanceof BPELDeployable )
+			return ((BPELDeployable)deployable).applyDelta(projectDelta);
+		deployable.clearCache();
+		return true;
+	}
+	
+	/**
+	 * Clear the cached members of the modules of the given projects only
+	 * 
+	 * @param projects
+	 */
+	protected void cleanDelegates(Set<IProject> projects) {
+		for( IProject project : projects ) {
+			boolean changed = false;
+			for( FlatComponentDeployable d : registry.getDelegates(project)) {
+				d.clearCache();
+				changed = true;
+			}
+			if( changed )
+				changedProjects.add(project);
+		}
+		scheduleNotification();
 	}
 	
 	protected void cleanAllDelegates() {
-		Iterator<FlatComponentDeployable> i = moduleDelegates.values().iterator();
+		Iterator<FlatComponentDeployable> i = registry.getDelegates().iterator();
 		while(i.hasNext()) {
 			i.next().clearCache();
 		}
+		changedAll.set(true);
+		scheduleNotification();
+	}
+	
+	/*
+	 * The first change in a window schedules the notification, 
+	 * later changes in the same window are picked up by it.
+	 */
+	private void scheduleNotification() {
+		if( changedProjects.isEmpty() && !changedAll.get())
+			return;
+		if( notificationScheduled.compareAndSet(false, true))
+			notificationJob.schedule(notificationDelay);
+	}
+	
+	private void fireModulesChanged() {
+		// Changes arriving from here on schedule the next notification
+		notificationScheduled.set(false);
+		boolean all = changedAll.getAndSet(false);
+		List<IProject> projects = new ArrayList<IProject>();
+		Iterator<IProject> i = changedProjects.iterator();
+		while(i.hasNext()) {
+			projects.add(i.next());
+			i.remove();
+		}
+		if( !all && projects.isEmpty())
+			return;
+		
 		modulesChanged();
+		final BPELModuleChangeEvent event = new BPELModuleChangeEvent(
+				projects.toArray(new IProject[projects.size()]), all);
+		for( final IBPELModuleChangeListener l : listeners ) {
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					l.modulesChanged(event);
+				}
+				public void handleException(Throwable exception) {
+					// logged by SafeRunner
+				}
+			});
+		}
+	}
+	
+	private class DiscoveryJob extends Job {
+		private final IProject project;
+		private volatile IModule[] modules;
+		
+		public DiscoveryJob(IProject project) {
+			super(NLS.bind("Discovering the BPEL modules of {0}", project.getName())); //$NON-NLS-1$
+			this.project = project;
+			setSystem(true);
+		}
+		
+		@Override
+		public boolean belongsTo(Object family) {
+			return DISCOVERY_FAMILY.equals(family);
+		}
+		
+		public IModule[] getModules() {
+			return modules;
+		}
+		
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			if( monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			monitor.beginTask(getName(), 1);
+			try {
+				modules = createProjectModules(project);
+				return Status.OK_STATUS;
+			} catch(RuntimeException re) {
+				// discovered again when WTP asks for the project
+				return new Status(IStatus.ERROR, RuntimesPlugin.PLUGIN_ID, getName(), re);
+			} finally {
+				monitor.done();
+			}
+		}
+	}
+	
+	private class ModulesChangedJob extends Job {
+		public ModulesChangedJob() {
+			super("BPEL module change notification"); //$NON-NLS-1$
+			setSystem(true);
+		}
+		
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			fireModulesChanged();
+			return Status.OK_STATUS;
+		}
 	}
 }
\ No newline at end of file
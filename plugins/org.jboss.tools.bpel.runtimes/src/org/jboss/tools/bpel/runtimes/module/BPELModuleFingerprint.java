@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.jboss.tools.bpel.runtimes.module.publish.BPELArchiveWriter;
+
+/**
+ * Computes a content fingerprint of a flattened module tree.
+ * Two module trees with the same relative paths and byte-identical
+ * files have the same fingerprint, regardless of timestamps.
+ */
+public class BPELModuleFingerprint {
+	private static final String ALGORITHM = "SHA-1"; //$NON-NLS-1$
+	private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private BPELModuleFingerprint() {
+	}
+
+	/**
+	 * Compute the fingerprint of the given module members
+	 *
+	 * @param members the flattened members of a module
+	 * @return a hex encoded digest, or null if a file could not be read
+	 */
+	public static String compute(IModuleResource[] members) {
+		List<IModuleFile> files = new ArrayList<IModuleFile>();
+		collectFiles(members, files);
+		// The digest must not depend on traversal order
+		Collections.sort(files, new Comparator<IModuleFile>() {
+			public int compare(IModuleFile o1, IModuleFile o2) {
+				return getRelativePath(o1).compareTo(getRelativePath(o2));
+			}
+		});
+
+		try {
+			MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+			byte[] buffer = new byte[8192];
+			for( IModuleFile f : files ) {
+				digest.update(getRelativePath(f).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte)0);
+				File source = BPELArchiveWriter.getFile(f);
+				if( source == null )
+					return null;
+				InputStream is = new FileInputStream(source);
+				try {
+					int read;
+					while((read = is.read(buffer)) != -1)
+						digest.update(buffer, 0, read);
+				} finally {
+					is.close();
+				}
+				digest.update((byte)0);
+			}
+			return toHex(digest.digest());
+		} catch(NoSuchAlgorithmException nsae) {
+			return null;
+		} catch(IOException ioe) {
+			return null;
+		}
+	}
+
+	private static void collectFiles(IModuleResource[] members, List<IModuleFile> files) {
+		for( int i = 0; i < members.length; i++ ) {
+			if( members[i] instanceof IModuleFile )
+				files.add((IModuleFile)members[i]);
+			else if( members[i] instanceof IModuleFolder )
+				collectFiles(((IModuleFolder)members[i]).members(), files);
+		}
+	}
+
+	private static String getRelativePath(IModuleResource res) {
+		return res.getModuleRelativePath().append(res.getName()).toPortableString();
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for( int i = 0; i < bytes.length; i++ ) {
+			chars[i*2] = HEX[(bytes[i] >> 4) & 0xf];
+			chars[i*2+1] = HEX[bytes[i] & 0xf];
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.web.internal.deployables.FlatComponentDeployable;
+
+/**
+ * The module delegates created by the {@link BPELModuleFactoryDelegate},
+ * indexed both by module and by project. 
+ * 
+ * Reads never block. The modules of a project are always registered and
+ * removed together, and a project which was checked and has no BPEL modules 
+ * is remembered as well, so it is not checked again until it changes.
+ */
+public class BPELModuleRegistry {
+	// must be a power of two
+	private static final int STRIPES = 32;
+	
+	private final Map<IModule, FlatComponentDeployable> delegates = new ConcurrentHashMap<IModule, FlatComponentDeployable>();
+	private final Map<IProject, Map<IModule, FlatComponentDeployable>> projects = 
+			new ConcurrentHashMap<IProject, Map<IModule, FlatComponentDeployable>>();
+	private final Object[] locks = new Object[STRIPES];
+	
+	public BPELModuleRegistry() {
+		for( int i = 0; i < STRIPES; i++ )
+			locks[i] = new Object();
+	}
+	
+	public FlatComponentDeployable get(IModule module) {
+		return delegates.get(module);
+	}
+	
+	/**
+	 * @param project
+	 * @return true if the modules of the project are registered, 
+	 * 	even if it turned out to have none
+	 */
+	public boolean isKnown(IProject project) {
+		return projects.containsKey(project);
+	}
+	
+	/**
+	 * @param project
+	 * @return the delegates of the modules of the project
+	 */
+	public Collection<FlatComponentDeployable> getDelegates(IProject project) {
+		Map<IModule, FlatComponentDeployable> modules = projects.get(project);
+		if( modules == null )
+			return Collections.emptySet();
+		return modules.values();
+	}
+	
+	public Collection<FlatComponentDeployable> getDelegates() {
+		return delegates.values();
+	}
+	
+	public Set<IProject> getProjects() {
+		return projects.keySet();
+	}
+	
+	/**
+	 * Replace all modules of a project
+	 * 
+	 * @param project
+	 * @param modules the new modules, possibly empty
+	 */
+	public void setModules(IProject project, Map<IModule, FlatComponentDeployable> modules) {
+		Map<IModule, FlatComponentDeployable> copy = 
+				Collections.unmodifiableMap(new HashMap<IModule, FlatComponentDeployable>(modules));
+		synchronized(getLock(project)) {
+			delegates.putAll(copy);
+			Map<IModule, FlatComponentDeployable> old = projects.put(project, copy);
+			if( old != null ) {
+				Iterator<IModule> it = old.keySet().iterator();
+				while(it.hasNext()) {
+					IModule m = it.next();
+					if( !copy.containsKey(m))
+						delegates.remove(m);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Register the modules of a project, unless they were registered 
+	 * since they were created
+	 * 
+	 * @param project
+	 * @param modules the new modules, possibly empty
+	 * @return true if the modules were registered
+	 */
+	public boolean setModulesIfAbsent(IProject project, Map<IModule, FlatComponentDeployable> modules) {
+		synchronized(getLock(project)) {
+			if( projects.containsKey(project))
+				return false;
+			setModules(project, modules);
+			return true;
+		}
+	}
+	
+	/**
+	 * Forget all modules of a project
+	 * 
+	 * @param project
+	 */
+	public void removeProject(IProject project) {
+		synchronized(getLock(project)) {
+			Map<IModule, FlatComponentDeployable> old = projects.remove(project);
+			if( old != null ) {
+				Iterator<IModule> it = old.keySet().iterator();
+				while(it.hasNext())
+					delegates.remove(it.next());
+			}
+		}
+	}
+	
+	/*
+	 * The lock guarding the registration of a project's modules. It is only 
+	 * held while the maps are updated, never while the modules are created.
+	 */
+	private Object getLock(IProject project) {
+		int h = project.hashCode();
+		h ^= (h >>> 16);
+		return locks[h & (STRIPES - 1)];
+	}
+}
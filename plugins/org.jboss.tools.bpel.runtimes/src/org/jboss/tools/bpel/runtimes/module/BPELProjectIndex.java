@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+import org.jboss.tools.foundation.core.xml.IMemento;
+import org.jboss.tools.foundation.core.xml.XMLMemento;
+
+/**
+ * Remembers which workspace projects are BPEL projects, so the module factory 
+ * does not have to load the facets and virtual component of every project
+ * each time the workbench starts.
+ * 
+ * An entry is keyed by the modification stamps of the project's metadata files
+ * and, for a BPEL project, of the deploy.xml in its content root. It is ignored
+ * as soon as any of them changes. The index is kept in the plugin
+ * state location and written in the background.
+ */
+public class BPELProjectIndex {
+	private static final String INDEX_FILE = "bpel.project.index"; //$NON-NLS-1$
+	private static final String PROJECTS = "projects"; //$NON-NLS-1$
+	private static final String PROJECT = "project"; //$NON-NLS-1$
+	private static final String NAME = "name"; //$NON-NLS-1$
+	private static final String STAMPS = "stamps"; //$NON-NLS-1$
+	private static final String BPEL = "bpel"; //$NON-NLS-1$
+	private static final String MODULE = "module"; //$NON-NLS-1$
+	private static final String FACET_VERSION = "facetVersion"; //$NON-NLS-1$
+	private static final String CONTENT_ROOT = "contentRoot"; //$NON-NLS-1$
+	private static final String DEPLOY_DESCRIPTOR = "deployDescriptor"; //$NON-NLS-1$
+	
+	public static final String DEPLOY_DESCRIPTOR_NAME = "deploy.xml"; //$NON-NLS-1$
+	
+	private static final long SAVE_DELAY = 1000;
+	
+	private static volatile Map<String, Entry> entries;
+	private static final Object loadLock = new Object();
+	private static volatile boolean dirty = false;
+	private static final SaveJob saveJob = new SaveJob();
+	// Set from the first change after a save until the save job starts
+	private static final AtomicBoolean savePending = new AtomicBoolean(false);
+	
+	private BPELProjectIndex() {
+	}
+	
+	/**
+	 * What is known about one project
+	 */
+	public static class Entry {
+		private String stamps;
+		private boolean bpel;
+		private String moduleName;
+		private String facetVersion;
+		private String contentRoot;
+		private boolean deployDescriptor;
+		
+		/**
+		 * An entry for a project which has no BPEL module
+		 */
+		public Entry() {
+			this(false, null, null, null, false);
+		}
+		
+		public Entry(String moduleName, String facetVersion, String contentRoot, boolean deployDescriptor) {
+			this(true, moduleName, facetVersion, contentRoot, deployDescriptor);
+		}
+		
+		private Entry(boolean bpel, String moduleName, String facetVersion, String contentRoot, boolean deployDescriptor) {
+			this.bpel = bpel;
+			this.moduleName = moduleName;
+			this.facetVersion = facetVersion;
+			this.contentRoot = contentRoot;
+			this.deployDescriptor = deployDescriptor;
+		}
+		
+		public boolean isBPELProject() {
+			return bpel;
+		}
+		
+		public String getModuleName() {
+			return moduleName;
+		}
+		
+		/**
+		 * @return the version of the installed BPEL facet, or null if not known
+		 */
+		public String getFacetVersion() {
+			return facetVersion;
+		}
+		
+		/**
+		 * @return the project relative path of the content root, or null if not known
+		 */
+		public String getContentRoot() {
+			return contentRoot;
+		}
+		
+		/**
+		 * @return true if the content root held a deploy.xml when the project was indexed
+		 */
+		public boolean hasDeployDescriptor() {
+			return deployDescriptor;
+		}
+	}
+	
+	/**
+	 * Get what is known about a project
+	 * 
+	 * @param project
+	 * @param keyPaths the project relative paths of the metadata files the entry depends on
+	 * @return the entry, or null if the project is not indexed or any of the files changed
+	 */
+	public static Entry getEntry(IProject project, IPath[] keyPaths) {
+		Entry e = getEntries().get(project.getName());
+		if( e == null || !e.stamps.equals(getStamps(project, keyPaths, e)))
+			return null;
+		return e;
+	}
+	
+	/**
+	 * Record what was found out about a project 
+	 * 
+	 * @param project
+	 * @param keyPaths the project relative paths of the metadata files the entry depends on
+	 * @param entry
+	 */
+	public static void setEntry(IProject project, IPath[] keyPaths, Entry entry) {
+		entry.stamps = getStamps(project, keyPaths, entry);
+		getEntries().put(project.getName(), entry);
+		changed();
+	}
+	
+	public static void removeEntry(IProject project) {
+		if( getEntries().remove(project.getName()) != null )
+			changed();
+	}
+	
+	/**
+	 * Write any pending changes now 
+	 */
+	public static void flush() {
+		saveJob.cancel();
+		savePending.set(false);
+		save();
+	}
+	
+	/*
+	 * The stamps of the metadata files, followed by the stamp of deploy.xml for
+	 * a BPEL project, so adding, changing or removing it invalidates the entry
+	 */
+	private static String getStamps(IProject project, IPath[] keyPaths, Entry entry) {
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < keyPaths.length; i++ ) {
+			if( i > 0 )
+				sb.append(',');
+			sb.append(getStamp(project, keyPaths[i]));
+		}
+		if( entry.bpel ) {
+			IPath descriptor = entry.contentRoot == null ? new Path(DEPLOY_DESCRIPTOR_NAME) 
+					: new Path(entry.contentRoot).append(DEPLOY_DESCRIPTOR_NAME);
+			sb.append(';').append(getStamp(project, descriptor));
+		}
+		return sb.toString();
+	}
+	
+	private static long getStamp(IProject project, IPath path) {
+		IResource r = project.findMember(path);
+		return r == null ? IResource.NULL_STAMP : r.getModificationStamp();
+	}
+	
+	/*
+	 * Only the first change after a save schedules the next one, see BPELPublishDescriptor
+	 */
+	private static void changed() {
+		dirty = true;
+		if( savePending.compareAndSet(false, true))
+			saveJob.schedule(SAVE_DELAY);
+	}
+	
+	private static Map<String, Entry> getEntries() {
+		Map<String, Entry> result = entries;
+		if( result == null ) {
+			synchronized(loadLock) {
+				result = entries;
+				if( result == null ) {
+					result = read(load(getFile()));
+					entries = result;
+				}
+			}
+		}
+		return result;
+	}
+	
+	private static File getFile() {
+		RuntimesPlugin plugin = RuntimesPlugin.getPlugin();
+		if( plugin == null )
+			return null;
+		return plugin.getStateLocation().append(INDEX_FILE).toFile();
+	}
+	
+	private static XMLMemento load(File file) {
+		if( file != null && file.exists() ) {
+			InputStream is = null;
+			try {
+				is = new FileInputStream(file);
+				return XMLMemento.createReadRoot(is);
+			} catch( IOException ioe) {
+				// rebuilt as projects are discovered
+			} catch( RuntimeException re) {
+				// a damaged index is rebuilt as well
+			} finally {
+				close(is);
+			}
+		}
+		return XMLMemento.createWriteRoot(PROJECTS);
+	}
+	
+	private static Map<String, Entry> read(XMLMemento memento) {
+		Map<String, Entry> result = new ConcurrentHashMap<String, Entry>();
+		IMemento[] projects = memento.getChildren(PROJECT);
+		for( int i = 0; i < projects.length; i++ ) {
+			String name = projects[i].getString(NAME);
+			String stamps = projects[i].getString(STAMPS);
+			if( name == null || stamps == null )
+				continue;
+			Entry e = new Entry(Boolean.parseBoolean(projects[i].getString(BPEL)), projects[i].getString(MODULE),
+					projects[i].getString(FACET_VERSION), projects[i].getString(CONTENT_ROOT), 
+					Boolean.parseBoolean(projects[i].getString(DEPLOY_DESCRIPTOR)));
+			if( e.bpel && e.moduleName == null )
+				continue;
+			e.stamps = stamps;
+			result.put(name, e);
+		}
+		return result;
+	}
+	
+	private static XMLMemento write(Map<String, Entry> map) {
+		XMLMemento memento = XMLMemento.createWriteRoot(PROJECTS);
+		for( Map.Entry<String, Entry> e : map.entrySet()) {
+			Entry entry = e.getValue();
+			IMemento child = memento.createChild(PROJECT);
+			child.putString(NAME, e.getKey());
+			child.putString(STAMPS, entry.stamps);
+			child.putString(BPEL, Boolean.toString(entry.bpel));
+			if( !entry.bpel )
+				continue;
+			child.putString(MODULE, entry.moduleName);
+			if( entry.facetVersion != null )
+				child.putString(FACET_VERSION, entry.facetVersion);
+			if( entry.contentRoot != null )
+				child.putString(CONTENT_ROOT, entry.contentRoot);
+			child.putString(DEPLOY_DESCRIPTOR, Boolean.toString(entry.deployDescriptor));
+		}
+		return memento;
+	}
+	
+	/*
+	 * Write the index next to the current one and move it into place, 
+	 * so a crash leaves either the old or the new index intact.
+	 */
+	private static synchronized void save() {
+		Map<String, Entry> map = entries;
+		File file = getFile();
+		if( !dirty || map == null || file == null )
+			return;
+		dirty = false;
+		File part = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+		FileOutputStream os = null;
+		try {
+			os = new FileOutputStream(part);
+			write(map).save(os);
+			os.getFD().sync();
+			os.close();
+			os = null;
+			BPELFileUtil.moveIntoPlace(part, file);
+		} catch( IOException ioe) {
+			part.delete();
+			RuntimesPlugin.log(ioe);
+		} finally {
+			close(os);
+		}
+	}
+	
+	private static void close(Closeable c) {
+		if( c != null ) {
+			try {
+				c.close();
+			} catch(IOException ioe) {
+				// ignore
+			}
+		}
+	}
+	
+	private static class SaveJob extends Job {
+		public SaveJob() {
+			super("Saving the BPEL project index"); //$NON-NLS-1$
+			setSystem(true);
+		}
+		
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			// changes made from here on need another save
+			savePending.set(false);
+			save();
+			return Status.OK_STATUS;
+		}
+	}
+}
@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
@@ -25,12 +26,14 @@ import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.osgi.util.NLS;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
 import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.model.IModuleResourceDelta;
+import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
 import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
 import org.jboss.ide.eclipse.as.core.server.IDeployableServer;
 import org.jboss.ide.eclipse.as.core.util.FileUtil;
@@ -38,14 +41,19 @@ import org.jboss.ide.eclipse.as.core.util.IEventCodes;
 import org.jboss.ide.eclipse.as.core.util.IJBossToolingConstants;
 import org.jboss.ide.eclipse.as.core.util.IWTPConstants;
 import org.jboss.ide.eclipse.as.core.util.ModuleResourceUtil;
-import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
 import org.jboss.ide.eclipse.as.core.util.ServerConverter;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.AbstractSubsystemController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IPublishControllerDelegate;
-import org.jboss.ide.eclipse.as.wtp.core.server.publish.LocalZippedModulePublishRunner;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.LocalFilesystemController;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishModuleFullRunner;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishModuleIncrementalRunner;
 import org.jboss.tools.as.core.server.controllable.util.PublishControllerUtility;
+import org.jboss.tools.bpel.runtimes.IBPELModuleFacetConstants;
+import org.jboss.tools.bpel.runtimes.module.publish.BPELArchiveWriter;
+import org.jboss.tools.bpel.runtimes.module.publish.ParallelDeleteRunner;
+import org.jboss.tools.bpel.runtimes.module.publish.ParallelArchiveWriter;
+import org.jboss.tools.bpel.runtimes.module.publish.ParallelPublishModuleRunner;
 
 /**
  * This class allows you to publish a BPEL module specifically
@@ -54,6 +62,12 @@ import org.jboss.tools.as.core.server.controllable.util.PublishControllerUtility
  *
  */
 public class BPELPublishController extends AbstractSubsystemController implements IPublishControllerDelegate {
+	/*
+	 * Changes to files with these extensions require ODE to recompile the process
+	 */
+	private static final List<String> DEPLOYMENT_FILE_EXTENSIONS = Arrays.asList(
+			IBPELModuleFacetConstants.BPEL_FILE_EXTENSION, "wsdl", "xsd"); //$NON-NLS-1$ //$NON-NLS-2$
+	
 	private IFilesystemController filesystemController;
 	
 	public BPELPublishController() {
@@ -62,8 +76,13 @@ public class BPELPublishController extends AbstractSubsystemController implement
 	/**
 	 * The entry point for this publisher. 
 	 * The BPEL publisher behaves in the following manner:
-	 *    - ignore all incremental publishes
-	 *    - create a new jar with a timestamp on a full publish request
+	 *    - create a new jar with a timestamp on a full publish request,
+	 *      unless the module content is identical to the last version, which 
+	 *      is still deployed; a clean publish always creates one
+	 *    - on an incremental publish of an exploded module, create a new 
+	 *      version only if a file that ODE compiles (bpel, wsdl, xsd, deploy.xml) 
+	 *      has changed, otherwise patch the most recent version in place.
+	 *      A zipped module gets a new version for any change.
 	 *    - remove ALL versions of an archive if a 'remove' request is made
 	 */
 	@Override
@@ -79,69 +98,202 @@ public class BPELPublishController extends AbstractSubsystemController implement
 				removeAll(last.getProject(), monitor);
         } else if( publishType == PublishControllerUtility.FULL_PUBLISH ){
         	// Publish a new version forced, full publish
-        	status = fullPublish(module, monitor);
+        	status = fullPublish(module, mayReuseLatest(kind, deltaKind), monitor);
         	publishState = IServer.PUBLISH_STATE_NONE;
         } else if( publishType == PublishControllerUtility.INCREMENTAL_PUBLISH ) {
-        	// Do nothing. This is intentional
-        	publishState = IServer.PUBLISH_STATE_INCREMENTAL;
+        	status = incrementalPublish(module, monitor);
+        	publishState = IServer.PUBLISH_STATE_NONE;
         }
         // https://issues.jboss.org/browse/JBDS-1573
-        // hack: display a warning dialog.
-        // Deployment validation should really be handled as a WizardFragment invoked from
-        // org.eclipse.wst.server.ui.internal.wizard.ModifyModulesWizard
-        // but there is no WizardFragment extension point for this class...
-        // 
-		if (status!=null && !status.isOK()) {
-			final IStatus s = status;
-			Display.getDefault().syncExec(new Runnable() {
-				public void run() {
-					MessageDialog.openWarning(Display.getDefault()
-							.getActiveShell(), Messages.DeployError, s
-							.getMessage());
-				}
-			});
-		}
+        // The result is reported asynchronously, so a failure never holds up the publish thread
+        if( status != null )
+        	BPELPublishStatusReporter.report(getServer(), module, status);
 		return publishState;	
 	}
 	
 	
-	// Only a full publish can be executed for bpel. 
-	// Incremental publishes are intentionally ignored
-	private IStatus fullPublish(IModule[] moduleTree, IProgressMonitor monitor) throws CoreException {
+	/*
+	 * An incremental publish of an exploded module only creates a new version 
+	 * when the change affects what ODE deploys. Any other change is patched 
+	 * into the most recently deployed version. Zipped modules cannot be patched.
+	 */
+	private IStatus incrementalPublish(IModule[] moduleTree, IProgressMonitor monitor) throws CoreException {
+		IModule last = moduleTree[moduleTree.length -1];
+		IModuleResourceDelta[] delta = getDeltaForModule(moduleTree);
+		if( delta == null || delta.length == 0 )
+			return Status.OK_STATUS;
+		
+		// An existing jar cannot be patched, so any change to a zipped module needs a new version
+		String[] deployed = BPELPublishDescriptor.getDeployedPathsFromDescriptor(getServer(), last.getProject());
+		if( deployed.length == 0 || shouldZip() || affectsDeployment(delta))
+			return fullPublish(moduleTree, true, monitor);
+		
+		IPath latest = new Path(deployed[deployed.length-1]);
+		PublishModuleIncrementalRunner runner = new PublishModuleIncrementalRunner(getFilesystemController(), latest);
+		ArrayList<IStatus> resultList = new ArrayList<IStatus>(Arrays.asList(runner.publish(delta, monitor)));
+		pruneList(resultList);
+		// The latest version now holds the patched content. Rehashing the whole module 
+		// would cost as much as a full publish, so its fingerprint becomes unknown.
+		BPELPublishDescriptor.setLatestHashInDescriptor(getServer(), last.getProject(), null);
+		if( resultList.size() > 0 ) {
+			MultiStatus ms = new MultiStatus(JBossServerCorePlugin.PLUGIN_ID, IEventCodes.JST_PUB_INC_FAIL, 
+					NLS.bind(org.jboss.ide.eclipse.as.core.Messages.IncrementalPublishFail, last.getName()), null);
+			for( int i = 0; i < resultList.size(); i++ )
+				ms.add(resultList.get(i));
+			return ms;
+		}
+		return Status.OK_STATUS;
+	}
+	
+	/*
+	 * get the resource delta for this module since its last publish
+	 */
+	private IModuleResourceDelta[] getDeltaForModule(IModule[] moduleTree) {
+		ServerBehaviourDelegate beh = (ServerBehaviourDelegate)getServer().loadAdapter(ServerBehaviourDelegate.class, null);
+		if( beh == null )
+			return new IModuleResourceDelta[0];
+		return beh.getPublishedResourceDelta(moduleTree);
+	}
+	
+	/**
+	 * Check whether any changed file in the delta is one that ODE compiles 
+	 * or reads when deploying a process, and so requires a new version.
+	 * 
+	 * @param delta
+	 * @return true if a new version must be published
+	 */
+	private boolean affectsDeployment(IModuleResourceDelta[] delta) {
+		for( int i = 0; i < delta.length; i++ ) {
+			IModuleResource res = delta[i].getModuleResource();
+			if( res instanceof IModuleFile ) {
+				if( delta[i].getKind() != IModuleResourceDelta.NO_CHANGE && isDeploymentFile(res.getName()))
+					return true;
+			} else if( affectsDeployment(delta[i].getAffectedChildren())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private boolean isDeploymentFile(String name) {
+		if( "deploy.xml".equals(name) || "bpel-deploy.xml".equals(name))
+			return true;
+		String ext = new Path(name).getFileExtension();
+		return ext != null && DEPLOYMENT_FILE_EXTENSIONS.contains(ext.toLowerCase());
+	}
+	
+	/*
+	 * An unchanged version which is still deployed may be reused, except by
+	 * a clean publish or when the module was just added to the server.
+	 */
+	private static boolean mayReuseLatest(int kind, int deltaKind) {
+		return kind != IServer.PUBLISH_CLEAN && deltaKind != ServerBehaviourDelegate.ADDED;
+	}
+	
+	private IStatus fullPublish(IModule[] moduleTree, boolean mayReuseLatest, IProgressMonitor monitor) throws CoreException {
+		IModule last = moduleTree[moduleTree.length -1];
+		BPELPublishMetrics metrics = new BPELPublishMetrics(getServer().getId(), last.getName());
+		try {
+			return fullPublish(moduleTree, mayReuseLatest, metrics, monitor);
+		} finally {
+			metrics.finish();
+		}
+	}
+	
+	private IStatus fullPublish(IModule[] moduleTree, boolean mayReuseLatest, BPELPublishMetrics metrics, 
+			IProgressMonitor monitor) throws CoreException {
 		ArrayList<IStatus> resultList = new ArrayList<IStatus>();
 		IModule last = moduleTree[moduleTree.length -1];
+		long publishStart = System.currentTimeMillis();
+		long mark = metrics.begin();
 		IModuleResource[] members = ModuleResourceUtil.getResources(last, new NullProgressMonitor());
+		metrics.end(BPELPublishMetrics.PHASE_COLLECT_MEMBERS, mark);
+		
 		// https://issues.jboss.org/browse/JBDS-1573
 		// make sure the project has a deploy.xml (bpel-deploy.xml for backward compatibility).
+		mark = metrics.begin();
 		IStatus hasDeployXmlStatus = verifyDeployXmlExists(last, members);
-		if( !hasDeployXmlStatus.isOK()) 
+		metrics.end(BPELPublishMetrics.PHASE_VERIFY_DEPLOY_XML, mark);
+		if( !hasDeployXmlStatus.isOK()) {
+			metrics.setErrors(1);
 			return hasDeployXmlStatus;
+		}
+		
+		// Skip the new version entirely if nothing has changed since the last one,
+		// and that one is still there
+		mark = metrics.begin();
+		String fingerprint = BPELModuleFingerprint.compute(members);
+		boolean unchanged = mayReuseLatest && fingerprint != null && fingerprint.equals(
+				BPELPublishDescriptor.getLatestHashFromDescriptor(getServer(), last.getProject()))
+				&& isLatestVersionDeployed(last.getProject());
+		metrics.end(BPELPublishMetrics.PHASE_FINGERPRINT, mark);
+		if( unchanged ) {
+			metrics.setSkipped(true);
+			return Status.OK_STATUS;
+		}
 		
 		IPath targetSystemDeployPath = getTargetSystemDeployPath(moduleTree);
+		metrics.setEntries(countFiles(members));
 		if( shouldZip() ) {
-			String moduleName = last.getName();
-			IPath temporaryArchive = getMetadataTemporaryLocation().append(moduleName);
-			LocalZippedModulePublishRunner runner = new LocalZippedModulePublishRunner(
-					getServer(), last,temporaryArchive, null);
-			IStatus ret = runner.fullPublishModule(new NullProgressMonitor());
-			resultList.add(ret);
-			
-			// The zipped archive is now stored in temporaryArchive
-			if( ret.isOK() ) {
-				ret = getFilesystemController().copyFile(temporaryArchive.toFile(), targetSystemDeployPath, monitor);
+			BPELArchiveWriter writer = new ParallelArchiveWriter(members, BPELPublishSettings.getParallelism(getServer()));
+			if( isLocalTarget()) {
+				// Compress straight into the deploy folder, the archive only touches the disk once
+				mark = metrics.begin();
+				resultList.add(writer.writeTo(targetSystemDeployPath.toFile(), monitor));
+				metrics.end(BPELPublishMetrics.PHASE_BUILD_ARCHIVE, mark);
+				metrics.addBytesWritten(targetSystemDeployPath.toFile().length());
+			} else {
+				String moduleName = last.getName();
+				IPath temporaryArchive = getMetadataTemporaryLocation().append(moduleName);
+				mark = metrics.begin();
+				IStatus ret = writer.writeTo(temporaryArchive.toFile(), monitor);
+				metrics.end(BPELPublishMetrics.PHASE_BUILD_ARCHIVE, mark);
 				resultList.add(ret);
+				
+				// The zipped archive is now stored in temporaryArchive
+				if( ret.isOK() ) {
+					mark = metrics.begin();
+					ret = getFilesystemController().copyFile(temporaryArchive.toFile(), targetSystemDeployPath, monitor);
+					metrics.end(BPELPublishMetrics.PHASE_COPY, mark);
+					metrics.addBytesWritten(temporaryArchive.toFile().length());
+					resultList.add(ret);
+				}
 			}
 		} else {
-			PublishModuleFullRunner runner = new PublishModuleFullRunner(getFilesystemController(), targetSystemDeployPath);
-			IStatus[] results = runner.fullPublish(members, monitor);
+			int parallelism = BPELPublishSettings.getParallelism(getServer());
+			IStatus[] results = null;
+			mark = metrics.begin();
+			if( parallelism > 1 && isLocalTarget()) {
+				// Overlap the file copies, the local controller is safe to use from several threads
+				ParallelPublishModuleRunner runner = new ParallelPublishModuleRunner(
+						getFilesystemController(), targetSystemDeployPath, parallelism);
+				results = runner.fullPublish(members, monitor);
+			} else {
+				PublishModuleFullRunner runner = new PublishModuleFullRunner(getFilesystemController(), targetSystemDeployPath);
+				results = runner.fullPublish(members, monitor);
+			}
+			metrics.end(BPELPublishMetrics.PHASE_COPY, mark);
+			metrics.addBytesWritten(getTotalSize(members));
 			resultList.addAll(Arrays.asList(results));
 		}
 		
-		// Add the deployed path to our descriptor which keeps track of all deployed jars
-		BPELPublishDescriptor.addDeployedPathToDescriptor(getServer(), last.getProject(), targetSystemDeployPath); // persist it
+		// Add the deployed path to our descriptor which keeps track of all deployed jars.
+		// The fingerprint is only kept if the version deployed cleanly, so a failed
+		// publish is never mistaken for an up-to-date one
+		pruneList(resultList);
+		metrics.setErrors(resultList.size());
+		mark = metrics.begin();
+		BPELDeployedVersion version = new BPELDeployedVersion(targetSystemDeployPath.toOSString(), 
+				resultList.isEmpty() ? fingerprint : null, metrics.getBytesWritten(), 
+				publishStart, System.currentTimeMillis());
+		BPELPublishDescriptor.addDeployedVersionToDescriptor(getServer(), last.getProject(), version); // persist it
+		metrics.end(BPELPublishMetrics.PHASE_DESCRIPTOR, mark);
+		
+		// Old versions are cleaned up in the background, off the publish path
+		if( BPELPublishSettings.hasRetentionPolicy(getServer()))
+			BPELVersionRetentionJob.schedule(getServer(), last.getProject());
 		
 		// Return a coherent status object to summarize the result
-		pruneList(resultList);
 		if( resultList.size() > 0 ) {
 			MultiStatus ms = new MultiStatus(JBossServerCorePlugin.PLUGIN_ID, IEventCodes.JST_PUB_FULL_FAIL, 
 					NLS.bind(org.jboss.ide.eclipse.as.core.Messages.FullPublishFail, last.getName()), null);
@@ -152,6 +304,46 @@ public class BPELPublishController extends AbstractSubsystemController implement
 		return Status.OK_STATUS;
 	}
 	
+	/*
+	 * The user may have removed the deployed version behind our back
+	 */
+	private boolean isLatestVersionDeployed(IProject project) throws CoreException {
+		BPELDeployedVersion latest = BPELPublishDescriptor.getLatestVersion(getServer(), project);
+		if( latest == null )
+			return false;
+		if( isLocalTarget())
+			return new File(latest.getPath()).exists();
+		if( shouldZip())
+			return getFilesystemController().isFile(new Path(latest.getPath()), new NullProgressMonitor());
+		// an exploded folder on a remote target cannot be checked
+		return true;
+	}
+	
+	private static int countFiles(IModuleResource[] members) {
+		int count = 0;
+		for( int i = 0; i < members.length; i++ ) {
+			if( members[i] instanceof IModuleFolder )
+				count += countFiles(((IModuleFolder)members[i]).members());
+			else
+				count++;
+		}
+		return count;
+	}
+	
+	private static long getTotalSize(IModuleResource[] members) {
+		long size = 0;
+		for( int i = 0; i < members.length; i++ ) {
+			if( members[i] instanceof IModuleFolder ) {
+				size += getTotalSize(((IModuleFolder)members[i]).members());
+			} else if( members[i] instanceof IModuleFile ) {
+				File f = BPELArchiveWriter.getFile((IModuleFile)members[i]);
+				if( f != null )
+					size += f.length();
+			}
+		}
+		return size;
+	}
+	
 
 	/*
 	 * get the filesystem controller for transfering files for this server
@@ -196,6 +388,13 @@ public class BPELPublishController extends AbstractSubsystemController implement
 		}
 	}
 	
+	/*
+	 * A local filesystem controller writes to a path we can open directly
+	 */
+	private boolean isLocalTarget() throws CoreException {
+		return getFilesystemController() instanceof LocalFilesystemController;
+	}
+	
 	private boolean shouldZip() {
 		IDeployableServer ds = ServerConverter.getDeployableServer(getServer());
 		return ds == null || ds.zipsWTPDeployments();
@@ -255,13 +454,26 @@ public class BPELPublishController extends AbstractSubsystemController implement
 	
 	private void removeAll(IProject project, IProgressMonitor monitor)  throws CoreException {
 		String[] paths = BPELPublishDescriptor.getDeployedPathsFromDescriptor(getServer(), project);
-		monitor.beginTask("Removing all bpel modules", paths.length * 100);
-		IFilesystemController controller = getFilesystemController();
+		monitor.beginTask("Removing all bpel modules", paths.length);
+		// remove them all, with full force!!! >=[
+		// Only the local controller is known to be safe to call from several threads
+		int parallelism = isLocalTarget() ? BPELPublishSettings.getParallelism(getServer()) : 1;
+		ParallelDeleteRunner runner = new ParallelDeleteRunner(getFilesystemController(), parallelism);
+		IStatus[] results = runner.delete(paths, monitor);
+		monitor.done();
+		
+		// A single descriptor update. Versions which could not be deleted are kept,
+		// so they can still be removed later.
+		ArrayList<String> removed = new ArrayList<String>();
 		for( int i = 0; i < paths.length; i++ ) {
-			// remove them all, with full force!!! >=[
-			controller.deleteResource(new Path(paths[i]), ProgressMonitorUtil.getSubMon(monitor, 100));
+			if( results[i].isOK())
+				removed.add(paths[i]);
 		}
-		BPELPublishDescriptor.removeProjectFromDescriptor(getServer(), project);
+		if( removed.size() == paths.length )
+			BPELPublishDescriptor.removeProjectFromDescriptor(getServer(), project);
+		else
+			BPELPublishDescriptor.removeVersionsFromDescriptor(getServer(), project, 
+					removed.toArray(new String[removed.size()]));
 	}
 	
 	
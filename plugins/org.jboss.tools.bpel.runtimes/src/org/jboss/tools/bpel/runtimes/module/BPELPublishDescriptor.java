@@ -10,17 +10,36 @@
  ******************************************************************************/ 
 package org.jboss.tools.bpel.runtimes.module;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.wst.server.core.IServer;
 import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
 import org.jboss.tools.foundation.core.xml.IMemento;
 import org.jboss.tools.foundation.core.xml.XMLMemento;
 
@@ -33,112 +52,897 @@ import org.jboss.tools.foundation.core.xml.XMLMemento;
  * Because of this, the full list of output files must be cached and maintained,
  * so that requests to remove all or specific deployed versions can be 
  * performed without error.  
+ * 
+ * The descriptor of each server is read once and then kept in memory.
+ * On disk it consists of a snapshot and a journal of the changes made since
+ * the snapshot was written. Changes are appended to the journal by a background
+ * job shortly after they are made, so a burst of changes results in a single write,
+ * and the journal is folded into a new snapshot once it grows large enough.
+ * Pending changes are written when the plugin is stopped, see {@link #flush()}.
+ * 
+ * Once a server's history grows beyond {@value #BINARY_INDEX_THRESHOLD} versions,
+ * the snapshot is written as a memory mapped {@link BPELVersionIndex} instead of XML.
+ * The versions of a project are then only read into memory when the project is used.
+ * 
+ * All methods are thread safe. Changes to different projects of the same server
+ * are guarded by different locks, so modules can be published in parallel.
  */
 public class BPELPublishDescriptor {
 	private static final String DEPLOYMENTS = "deployments";
 	private static final String PROJECT = "project";
 	private static final String NAME = "name";
 	private static final String VERSION = "version";
+	private static final String HASH = "hash";
+	private static final String SIZE = "size";
+	private static final String PUBLISH_START = "publishStart";
+	private static final String PUBLISH_END = "publishEnd";
+	
+	private static final long SAVE_DELAY = 500;
+	private static final int COMPACT_THRESHOLD = 1000;
+	private static final int BINARY_INDEX_THRESHOLD = 10000;
+	private static final String INDEX_PREFIX = "bpel.deployment.index."; //$NON-NLS-1$
+	
+	// must be a power of two
+	private static final int STRIPES = 64;
+	private static final Object[] locks = new Object[STRIPES];
+	static {
+		for( int i = 0; i < STRIPES; i++ )
+			locks[i] = new Object();
+	}
+	
+	private static final Map<String, Descriptor> descriptors = new ConcurrentHashMap<String, Descriptor>();
+	private static final SaveJob saveJob = new SaveJob();
+	// Set from the first change after a save until the save job starts
+	private static final AtomicBoolean savePending = new AtomicBoolean(false);
 
 	
 	public static String[] getDeployedPathsFromDescriptor(IServer server, IProject project) {
-		File f = getDeployDetailsFile(server);
-		ArrayList<String> list = new ArrayList<String>();
-		if( f.exists() ) {
-			try {
-				XMLMemento memento = XMLMemento.createReadRoot(new FileInputStream(f));
-				IMemento[] projects = memento.getChildren(PROJECT);//$NON-NLS-1$
-				for( int i = 0; i < projects.length; i++ ) {
-					if( project.getName().equals(projects[i].getString(NAME))) {
-						IMemento[] deployments = projects[i].getChildren(VERSION);
-						for( int j = 0; j < deployments.length; j++ ) {
-							String s = ((XMLMemento)deployments[j]).getTextData();
-							if( s != null && !s.equals(""))
-								list.add(s);
-						}
-						break;
-					}
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			ProjectVersions p = d.getProject(project.getName());
+			if( p == null )
+				return new String[0];
+			return p.versions.keySet().toArray(new String[p.versions.size()]);
+		}
+	}
+	
+	/**
+	 * Get the content fingerprint stored with the most recently
+	 * deployed version of the given project.
+	 * 
+	 * @param server
+	 * @param project
+	 * @return the fingerprint, or null if none was recorded
+	 */
+	public static String getLatestHashFromDescriptor(IServer server, IProject project) {
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			ProjectVersions p = d.getProject(project.getName());
+			return p == null || p.latest == null ? null : p.versions.get(p.latest).getHash();
+		}
+	}
+	
+	/**
+	 * Get all recorded versions of a project
+	 * 
+	 * @param server
+	 * @param project
+	 * @return the versions, oldest first
+	 */
+	public static BPELDeployedVersion[] getDeployedVersions(IServer server, IProject project) {
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			ProjectVersions p = d.getProject(project.getName());
+			if( p == null )
+				return new BPELDeployedVersion[0];
+			return p.getOrdered().clone();
+		}
+	}
+	
+	/**
+	 * Get the number of recorded versions of a project. This does not
+	 * read the versions of the project into memory.
+	 * 
+	 * @param server
+	 * @param project
+	 * @return the number of versions
+	 */
+	public static int getDeployedVersionCount(IServer server, IProject project) {
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			ProjectVersions p = d.projects.get(project.getName());
+			if( p != null )
+				return p.versions.size();
+			BPELVersionIndex index = d.index;
+			return index == null ? 0 : index.getVersionCount(project.getName());
+		}
+	}
+	
+	/**
+	 * Get a page of the versions of a project, newest first
+	 * 
+	 * @param server
+	 * @param project
+	 * @param offset the number of newer versions to skip
+	 * @param limit the maximum number of versions to return
+	 * @return the versions, newest first
+	 */
+	public static BPELDeployedVersion[] getDeployedVersions(IServer server, IProject project, int offset, int limit) {
+		return getDeployedVersions(server, project, Long.MIN_VALUE, Long.MAX_VALUE, offset, limit);
+	}
+	
+	/**
+	 * Get a page of the versions of a project which were deployed 
+	 * in the given period, newest first. When a period is given, versions 
+	 * whose deployment time is unknown are not included.
+	 * 
+	 * @param server
+	 * @param project
+	 * @param from the start of the period, inclusive, or Long.MIN_VALUE
+	 * @param to the end of the period, exclusive, or Long.MAX_VALUE
+	 * @param offset the number of newer matching versions to skip
+	 * @param limit the maximum number of versions to return
+	 * @return the versions, newest first
+	 */
+	public static BPELDeployedVersion[] getDeployedVersions(IServer server, IProject project, 
+			long from, long to, int offset, int limit) {
+		boolean filter = from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+		List<BPELDeployedVersion> page = new ArrayList<BPELDeployedVersion>();
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			ProjectVersions p = d.projects.get(project.getName());
+			BPELVersionIndex index = d.index;
+			if( p == null && index != null ) {
+				// page straight through the index, without reading the whole project
+				BPELVersionIndex.Cursor c = index.cursor(project.getName());
+				int skipped = 0;
+				for( int i = c.getCount() - 1; i >= 0 && page.size() < limit; i-- ) {
+					c.seek(i);
+					c.next();
+					if( filter && !inPeriod(c.getPublishEnd() != BPELDeployedVersion.UNKNOWN ? 
+							c.getPublishEnd() : BPELVersionRetentionJob.getVersionTimestamp(c.getPath()), from, to))
+						continue;
+					if( skipped++ >= offset )
+						page.add(c.getVersion());
+				}
+			} else if( p != null ) {
+				BPELDeployedVersion[] all = p.getOrdered();
+				int skipped = 0;
+				for( int i = all.length - 1; i >= 0 && page.size() < limit; i-- ) {
+					if( filter && !inPeriod(all[i].getTimestamp(), from, to))
+						continue;
+					if( skipped++ >= offset )
+						page.add(all[i]);
 				}
-			} catch( FileNotFoundException fnfe) {}
+			}
+		}
+		return page.toArray(new BPELDeployedVersion[page.size()]);
+	}
+	
+	private static boolean inPeriod(long time, long from, long to) {
+		return time != BPELDeployedVersion.UNKNOWN && time >= from && time < to;
+	}
+	
+	/**
+	 * @param server
+	 * @param project
+	 * @param path the deployed path
+	 * @return the recorded version, or null
+	 */
+	public static BPELDeployedVersion getDeployedVersion(IServer server, IProject project, String path) {
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			return d.findVersion(project.getName(), path);
+		}
+	}
+	
+	/**
+	 * @param server
+	 * @param project
+	 * @return the most recently deployed version, or null
+	 */
+	public static BPELDeployedVersion getLatestVersion(IServer server, IProject project) {
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			ProjectVersions p = d.getProject(project.getName());
+			return p == null || p.latest == null ? null : p.versions.get(p.latest);
+		}
+	}
+	
+	/**
+	 * Get the versions of a project which were deployed before the given time.
+	 * Versions whose deployment time is unknown are not included.
+	 * 
+	 * @param server
+	 * @param project
+	 * @param time a time in milliseconds
+	 * @return the versions, oldest first
+	 */
+	public static BPELDeployedVersion[] getVersionsDeployedBefore(IServer server, IProject project, long time) {
+		BPELDeployedVersion[] all = getDeployedVersions(server, project);
+		List<BPELDeployedVersion> result = new ArrayList<BPELDeployedVersion>();
+		for( int i = 0; i < all.length; i++ ) {
+			long stamp = all[i].getTimestamp();
+			if( stamp != BPELDeployedVersion.UNKNOWN && stamp < time )
+				result.add(all[i]);
 		}
-		return (String[]) list.toArray(new String[list.size()]);
+		return result.toArray(new BPELDeployedVersion[result.size()]);
+	}
+	
+	/**
+	 * Get the combined size of all versions of a project on the server.
+	 * Versions whose size is unknown are not counted.
+	 * 
+	 * @param server
+	 * @param project
+	 * @return a number of bytes
+	 */
+	public static long getTotalDeployedSize(IServer server, IProject project) {
+		BPELDeployedVersion[] all = getDeployedVersions(server, project);
+		long total = 0;
+		for( int i = 0; i < all.length; i++ ) {
+			if( all[i].getSize() != BPELDeployedVersion.UNKNOWN )
+				total += all[i].getSize();
+		}
+		return total;
+	}
+	
+	/**
+	 * Check whether a path is recorded as a deployed version of the given project
+	 * 
+	 * @param server
+	 * @param project
+	 * @param path the deployed path
+	 * @return true if the version is known
+	 */
+	public static boolean isDeployedVersion(IServer server, IProject project, String path) {
+		Descriptor d = getDescriptor(server);
+		synchronized(getLock(server, project)) {
+			return d.findVersion(project.getName(), path) != null;
+		}
+	}
+	
+	/**
+	 * Get the names of all projects with versions deployed to the server
+	 * 
+	 * @param server
+	 * @return the project names
+	 */
+	public static String[] getProjectNames(IServer server) {
+		Descriptor d = getDescriptor(server);
+		Set<String> names = new LinkedHashSet<String>(d.projects.keySet());
+		BPELVersionIndex index = d.index;
+		if( index != null )
+			names.addAll(index.getProjectNames());
+		List<String> result = new ArrayList<String>();
+		for( String name : names ) {
+			synchronized(getLock(server.getId(), name)) {
+				ProjectVersions p = d.projects.get(name);
+				if( p != null ? !p.versions.isEmpty() : index != null && index.getVersionCount(name) > 0 )
+					result.add(name);
+			}
+		}
+		return result.toArray(new String[result.size()]);
 	}
 	
 	public static void removeVersionFromDescriptor(IServer server, IProject project, String path) {
-		File f = getDeployDetailsFile(server);
-		XMLMemento memento = null;
+		removeVersionsFromDescriptor(server, project, new String[] { path });
+	}
+
+	/**
+	 * Remove several versions of a project with a single update of the descriptor
+	 * 
+	 * @param server
+	 * @param project
+	 * @param paths the deployed paths to forget
+	 */
+	public static void removeVersionsFromDescriptor(IServer server, IProject project, String[] paths) {
+		Descriptor d = getDescriptor(server);
+		d.structure.readLock().lock();
 		try {
-			memento = XMLMemento.createReadRoot(new FileInputStream(f));
-			IMemento[] projects = memento.getChildren(PROJECT);//$NON-NLS-1$
-			for( int i = 0; i < projects.length; i++ ) {
-				if( project.getName().equals(projects[i].getString(NAME)) ) {
-					IMemento[] versions = projects[i].getChildren(VERSION);
-					for( int j = 0; j < versions.length; j++ ) {
-						if( ((XMLMemento)versions[j]).getTextData().equals(path)) {
-							((XMLMemento)projects[i]).removeChild((XMLMemento)versions[j]);
-						}
-					}
+			synchronized(getLock(server, project)) {
+				ProjectVersions p = d.getProject(project.getName());
+				for( int i = 0; p != null && i < paths.length; i++ ) {
+					if( p.remove(paths[i]))
+						d.record(BPELDescriptorJournal.REMOVE, project.getName(), paths[i]);
 				}
 			}
-			save(server, memento);
-		} catch( FileNotFoundException fnfe) {}
+		} finally {
+			d.structure.readLock().unlock();
+		}
+		scheduleSave(d);
 	}
 
 	public static void removeProjectFromDescriptor(IServer server, IProject project) {
-		File f = getDeployDetailsFile(server);
-		XMLMemento memento = null;
+		Descriptor d = getDescriptor(server);
+		d.structure.readLock().lock();
 		try {
-			memento = XMLMemento.createReadRoot(new FileInputStream(f));
-			IMemento[] projects = memento.getChildren(PROJECT);//$NON-NLS-1$
-			for( int i = 0; i < projects.length; i++ ) {
-				if( project.getName().equals(projects[i].getString(NAME)) ) {
-					memento.removeChild((XMLMemento)projects[i]);
-				}
+			synchronized(getLock(server, project)) {
+				if( d.removeProject(project.getName()))
+					d.record(BPELDescriptorJournal.REMOVE_PROJECT, project.getName());
 			}
-			save(server, memento);
-		} catch( FileNotFoundException fnfe) {}
+		} finally {
+			d.structure.readLock().unlock();
+		}
+		scheduleSave(d);
 	}
 	
 	public static void addDeployedPathToDescriptor(IServer server, IProject project, IPath path) {
-		File f = getDeployDetailsFile(server);
-		XMLMemento memento = null;
+		addDeployedPathToDescriptor(server, project, path, null);
+	}
+	
+	/**
+	 * Record a newly deployed version along with the content 
+	 * fingerprint of the module it was built from.
+	 * 
+	 * @param server
+	 * @param project
+	 * @param path the deployed path
+	 * @param hash the module fingerprint, may be null
+	 */
+	public static void addDeployedPathToDescriptor(IServer server, IProject project, IPath path, String hash) {
+		addDeployedVersionToDescriptor(server, project, new BPELDeployedVersion(path.toOSString(), hash));
+	}
+	
+	/**
+	 * Record a newly deployed version with all its details
+	 * 
+	 * @param server
+	 * @param project
+	 * @param version
+	 */
+	public static void addDeployedVersionToDescriptor(IServer server, IProject project, BPELDeployedVersion version) {
+		Descriptor d = getDescriptor(server);
+		d.structure.readLock().lock();
 		try {
-			memento = XMLMemento.createReadRoot(new FileInputStream(f));
-		} catch( FileNotFoundException fnfe) {}
-		
-		if( memento == null )
-			memento = XMLMemento.createWriteRoot(DEPLOYMENTS);
-
-		IMemento[] projects = memento.getChildren(PROJECT);//$NON-NLS-1$
-		boolean projectFound = false;
-		for( int i = 0; i < projects.length; i++ ) {
-			if( project.getName().equals(projects[i].getString(NAME))) {
-				projectFound = true;
-				XMLMemento child = (XMLMemento)projects[i].createChild(VERSION);
-				child.putTextData(path.toOSString());
+			synchronized(getLock(server, project)) {
+				if( d.addVersion(project.getName(), version))
+					d.record(BPELDescriptorJournal.ADD, project.getName(), version.getPath(), version.getHash(),
+							Long.toString(version.getSize()), Long.toString(version.getPublishStart()), 
+							Long.toString(version.getPublishEnd()));
 			}
+		} finally {
+			d.structure.readLock().unlock();
 		}
-		if( !projectFound ) {
-			XMLMemento proj = (XMLMemento)memento.createChild(PROJECT);
-			proj.putString(NAME, project.getName());
-			XMLMemento child = (XMLMemento)proj.createChild(VERSION);
-			child.putTextData(path.toOSString());
+		scheduleSave(d);
+	}
+
+	/**
+	 * Replace the content fingerprint of the most recently deployed version,
+	 * after that version was changed in place
+	 * 
+	 * @param server
+	 * @param project
+	 * @param hash the new fingerprint, or null if the content is not known
+	 */
+	public static void setLatestHashInDescriptor(IServer server, IProject project, String hash) {
+		Descriptor d = getDescriptor(server);
+		d.structure.readLock().lock();
+		try {
+			synchronized(getLock(server, project)) {
+				ProjectVersions p = d.getProject(project.getName());
+				if( p == null || p.latest == null )
+					return;
+				BPELDeployedVersion v = p.versions.get(p.latest);
+				if( hash == null ? v.getHash() == null : hash.equals(v.getHash()))
+					return;
+				BPELDeployedVersion updated = new BPELDeployedVersion(v.getPath(), hash, v.getSize(), 
+						v.getPublishStart(), v.getPublishEnd());
+				// removing and adding again keeps it the latest version
+				p.remove(v.getPath());
+				p.add(updated);
+				d.record(BPELDescriptorJournal.REMOVE, project.getName(), v.getPath());
+				d.record(BPELDescriptorJournal.ADD, project.getName(), updated.getPath(), updated.getHash(),
+						Long.toString(updated.getSize()), Long.toString(updated.getPublishStart()), 
+						Long.toString(updated.getPublishEnd()));
+			}
+		} finally {
+			d.structure.readLock().unlock();
 		}
-		save(server, memento);
+		scheduleSave(d);
 	}
 
-	
+	/**
+	 * Replace the descriptor of a server and write it immediately
+	 * 
+	 * @param server
+	 * @param memento
+	 */
 	public static void save(IServer server, XMLMemento memento) {
-		try {
-			memento.save(new FileOutputStream(getDeployDetailsFile(server)));
-		} catch( IOException ioe) {
-			// TODO LOG
+		Descriptor d = getDescriptor(server);
+		synchronized(d.journal) {
+			d.structure.writeLock().lock();
+			try {
+				d.index = null;
+				d.projects = Descriptor.read(memento);
+				d.compact();
+			} finally {
+				d.structure.writeLock().unlock();
+			}
 		}
 	}
 	
-	private static File getDeployDetailsFile(IServer server) {
-		return JBossServerCorePlugin.getServerStateLocation(server)
-					.append("bpel.deployment.versions").toFile();
+	/**
+	 * Write all pending changes to disk. 
+	 * This is called when the plugin is stopped.
+	 */
+	public static void flush() {
+		saveJob.cancel();
+		savePending.set(false);
+		saveAll();
+	}
+	
+	private static void saveAll() {
+		for( Descriptor d : descriptors.values())
+			d.save();
+	}
+	
+	private static Object getLock(IServer server, IProject project) {
+		return getLock(server.getId(), project.getName());
+	}
+	
+	private static Object getLock(String serverId, String project) {
+		int h = serverId.hashCode() * 31 + project.hashCode();
+		h ^= (h >>> 16);
+		return locks[h & (STRIPES - 1)];
+	}
+	
+	private static Descriptor getDescriptor(IServer server) {
+		Descriptor d = descriptors.get(server.getId());
+		if( d == null ) {
+			synchronized(descriptors) {
+				d = descriptors.get(server.getId());
+				if( d == null ) {
+					IPath location = JBossServerCorePlugin.getServerStateLocation(server);
+					d = new Descriptor(location.append("bpel.deployment.versions").toFile(),
+							location.append("bpel.deployment.journal").toFile());
+					descriptors.put(server.getId(), d);
+				}
+			}
+		}
+		return d;
+	}
+	
+	/*
+	 * Rescheduling a sleeping job restarts its delay, so the job is only scheduled 
+	 * by the first change after a save. Otherwise it would never run under steady load.
+	 */
+	private static void scheduleSave(Descriptor d) {
+		if( d.isDirty() && savePending.compareAndSet(false, true))
+			saveJob.schedule(SAVE_DELAY);
+	}
+	
+	/*
+	 * The versions of one project, in the order they were deployed.
+	 * Guarded by the lock of the server and project.
+	 */
+	private static class ProjectVersions {
+		// deployed path -> version
+		private final LinkedHashMap<String, BPELDeployedVersion> versions = new LinkedHashMap<String, BPELDeployedVersion>();
+		private String latest;
+		// the versions in order, kept until the next change
+		private BPELDeployedVersion[] ordered;
+		
+		public ProjectVersions() {
+		}
+		
+		public ProjectVersions(BPELDeployedVersion[] versions) {
+			for( int i = 0; i < versions.length; i++ )
+				add(versions[i]);
+		}
+		
+		public boolean add(BPELDeployedVersion version) {
+			if( versions.containsKey(version.getPath()))
+				return false;
+			versions.put(version.getPath(), version);
+			latest = version.getPath();
+			ordered = null;
+			return true;
+		}
+		
+		public boolean remove(String path) {
+			if( !versions.containsKey(path))
+				return false;
+			versions.remove(path);
+			ordered = null;
+			if( path.equals(latest)) {
+				latest = null;
+				for( String p : versions.keySet())
+					latest = p;
+			}
+			return true;
+		}
+		
+		public BPELDeployedVersion[] getOrdered() {
+			if( ordered == null )
+				ordered = versions.values().toArray(new BPELDeployedVersion[versions.size()]);
+			return ordered;
+		}
+	}
+	
+	/*
+	 * The in-memory copy of one server's descriptor: the snapshot 
+	 * with the journal replayed on top of it, indexed by project name.
+	 * 
+	 * When the snapshot is a binary index, projects are read from it the 
+	 * first time they are used, and forgotten again when a new index is 
+	 * written. A removed project is then kept as an empty entry, so it 
+	 * is not read from the index again.
+	 * 
+	 * Each project is guarded by its striped lock. Changes additionally 
+	 * hold the read lock of the structure lock, so a snapshot, which holds 
+	 * the write lock, sees no change in progress. Writes to disk are 
+	 * serialized on the journal.
+	 */
+	private static class Descriptor {
+		private final File snapshot;
+		private final BPELDescriptorJournal journal;
+		private final ReadWriteLock structure = new ReentrantReadWriteLock();
+		private final Queue<String[]> pending = new ConcurrentLinkedQueue<String[]>();
+		private volatile Map<String, ProjectVersions> projects;
+		private volatile BPELVersionIndex index;
+		private boolean binary = false;
+		private int generation = 0;
+		
+		public Descriptor(File snapshot, File journal) {
+			this.snapshot = snapshot;
+			this.journal = new BPELDescriptorJournal(journal);
+			openIndex();
+			this.projects = binary ? new ConcurrentHashMap<String, ProjectVersions>() : read(load(snapshot));
+			replay();
+		}
+		
+		/*
+		 * Each index is written under a new generation number, so a new index 
+		 * never has to replace a file which may still be mapped
+		 */
+		private void openIndex() {
+			File[] files = snapshot.getParentFile().listFiles();
+			List<Integer> generations = new ArrayList<Integer>();
+			for( int i = 0; files != null && i < files.length; i++ ) {
+				int gen = getGeneration(files[i]);
+				if( gen != -1 )
+					generations.add(gen);
+			}
+			Collections.sort(generations, Collections.reverseOrder());
+			for( Integer gen : generations ) {
+				try {
+					index = BPELVersionIndex.open(getIndexFile(gen));
+					generation = gen;
+					binary = true;
+					break;
+				} catch(IOException ioe) {
+					RuntimesPlugin.log(ioe);
+				}
+			}
+			deleteOldIndexes();
+		}
+		
+		private File getIndexFile(int gen) {
+			return new File(snapshot.getParentFile(), INDEX_PREFIX + gen);
+		}
+		
+		private static int getGeneration(File f) {
+			if( !f.getName().startsWith(INDEX_PREFIX))
+				return -1;
+			try {
+				return Integer.parseInt(f.getName().substring(INDEX_PREFIX.length()));
+			} catch(NumberFormatException nfe) {
+				return -1;
+			}
+		}
+		
+		private void deleteOldIndexes() {
+			File[] files = snapshot.getParentFile().listFiles();
+			for( int i = 0; files != null && i < files.length; i++ ) {
+				int gen = getGeneration(files[i]);
+				// may fail while an old index is still mapped, it is retried next time
+				if( gen != -1 && (!binary || gen < generation))
+					files[i].delete();
+			}
+		}
+		
+		/*
+		 * Called with the lock of the project held
+		 */
+		public ProjectVersions getProject(String name) {
+			ProjectVersions p = projects.get(name);
+			if( p == null ) {
+				BPELVersionIndex i = index;
+				if( i != null && i.getVersionCount(name) > 0 ) {
+					p = new ProjectVersions(i.getVersions(name));
+					projects.put(name, p);
+				}
+			}
+			return p;
+		}
+		
+		/*
+		 * Look a version up without reading its project from the index.
+		 * Called with the lock of the project held
+		 */
+		public BPELDeployedVersion findVersion(String project, String path) {
+			ProjectVersions p = projects.get(project);
+			if( p != null )
+				return p.versions.get(path);
+			BPELVersionIndex i = index;
+			return i == null ? null : i.findVersion(project, path);
+		}
+		
+		public boolean removeProject(String name) {
+			if( getProject(name) == null )
+				return false;
+			if( binary )
+				projects.put(name, new ProjectVersions());
+			else
+				projects.remove(name);
+			return true;
+		}
+		
+		private static XMLMemento load(File file) {
+			if( file.exists() ) {
+				InputStream is = null;
+				try {
+					is = new FileInputStream(file);
+					return XMLMemento.createReadRoot(is);
+				} catch( FileNotFoundException fnfe) {
+				} finally {
+					close(is);
+				}
+			}
+			return XMLMemento.createWriteRoot(DEPLOYMENTS);
+		}
+		
+		public static Map<String, ProjectVersions> read(XMLMemento memento) {
+			Map<String, ProjectVersions> result = new ConcurrentHashMap<String, ProjectVersions>();
+			IMemento[] projects = memento.getChildren(PROJECT);//$NON-NLS-1$
+			for( int i = 0; i < projects.length; i++ ) {
+				String name = projects[i].getString(NAME);
+				if( name == null )
+					continue;
+				ProjectVersions p = result.get(name);
+				if( p == null ) {
+					p = new ProjectVersions();
+					result.put(name, p);
+				}
+				IMemento[] versions = projects[i].getChildren(VERSION);
+				for( int j = 0; j < versions.length; j++ ) {
+					String path = ((XMLMemento)versions[j]).getTextData();
+					if( path != null && !path.equals(""))
+						p.add(new BPELDeployedVersion(path, versions[j].getString(HASH),
+								getLong(versions[j], SIZE), getLong(versions[j], PUBLISH_START), 
+								getLong(versions[j], PUBLISH_END)));
+				}
+			}
+			return result;
+		}
+		
+		private static long getLong(IMemento memento, String key) {
+			String value = memento.getString(key);
+			if( value != null ) {
+				try {
+					return Long.parseLong(value);
+				} catch(NumberFormatException nfe) {
+					// unknown
+				}
+			}
+			return BPELDeployedVersion.UNKNOWN;
+		}
+		
+		private static long getLong(String[] record, int index) {
+			if( index < record.length ) {
+				try {
+					return Long.parseLong(record[index]);
+				} catch(NumberFormatException nfe) {
+					// unknown
+				}
+			}
+			return BPELDeployedVersion.UNKNOWN;
+		}
+		
+		/*
+		 * Called with the write lock held, or before the descriptor is published
+		 */
+		private XMLMemento write() {
+			XMLMemento memento = XMLMemento.createWriteRoot(DEPLOYMENTS);
+			for( Map.Entry<String, ProjectVersions> e : projects.entrySet()) {
+				if( e.getValue().versions.isEmpty())
+					continue;
+				IMemento proj = memento.createChild(PROJECT);
+				proj.putString(NAME, e.getKey());
+				for( BPELDeployedVersion v : e.getValue().versions.values()) {
+					XMLMemento child = (XMLMemento)proj.createChild(VERSION);
+					child.putTextData(v.getPath());
+					if( v.getHash() != null )
+						child.putString(HASH, v.getHash());
+					if( v.getSize() != BPELDeployedVersion.UNKNOWN )
+						child.putString(SIZE, Long.toString(v.getSize()));
+					if( v.getPublishStart() != BPELDeployedVersion.UNKNOWN )
+						child.putString(PUBLISH_START, Long.toString(v.getPublishStart()));
+					if( v.getPublishEnd() != BPELDeployedVersion.UNKNOWN )
+						child.putString(PUBLISH_END, Long.toString(v.getPublishEnd()));
+				}
+			}
+			return memento;
+		}
+		
+		/*
+		 * Applying a record is idempotent, so records which are already part
+		 * of the snapshot, because a compaction was interrupted, are harmless
+		 */
+		private void replay() {
+			try {
+				List<String[]> records = journal.read();
+				for( String[] r : records ) {
+					if( BPELDescriptorJournal.ADD.equals(r[0]) && r.length > 2 ) {
+						addVersion(r[1], new BPELDeployedVersion(r[2], r.length > 3 && r[3].length() > 0 ? r[3] : null,
+								getLong(r, 4), getLong(r, 5), getLong(r, 6)));
+					} else if( BPELDescriptorJournal.REMOVE.equals(r[0]) && r.length > 2 ) {
+						ProjectVersions p = getProject(r[1]);
+						if( p != null )
+							p.remove(r[2]);
+					} else if( BPELDescriptorJournal.REMOVE_PROJECT.equals(r[0]) && r.length > 1 ) {
+						removeProject(r[1]);
+					}
+				}
+			} catch(IOException ioe) {
+				RuntimesPlugin.log(ioe);
+			}
+		}
+		
+		public boolean addVersion(String project, BPELDeployedVersion version) {
+			ProjectVersions p = getProject(project);
+			if( p == null ) {
+				p = new ProjectVersions();
+				projects.put(project, p);
+			}
+			return p.add(version);
+		}
+		
+		public void record(String... record) {
+			pending.add(record);
+		}
+		
+		public boolean isDirty() {
+			return !pending.isEmpty();
+		}
+		
+		/*
+		 * Append the pending records to the journal, or fold 
+		 * everything into a new snapshot if the journal is large
+		 */
+		public void save() {
+			synchronized(journal) {
+				if( pending.isEmpty())
+					return;
+				if( journal.size() + pending.size() > COMPACT_THRESHOLD ) {
+					structure.writeLock().lock();
+					try {
+						compact();
+					} finally {
+						structure.writeLock().unlock();
+					}
+					return;
+				}
+				List<String[]> batch = new ArrayList<String[]>();
+				String[] r;
+				while((r = pending.poll()) != null )
+					batch.add(r);
+				try {
+					journal.append(batch);
+				} catch( IOException ioe) {
+					RuntimesPlugin.log(ioe);
+				}
+			}
+		}
+		
+		/*
+		 * Called with the journal and the write lock held
+		 */
+		public void compact() {
+			if( binary || countVersions() > BINARY_INDEX_THRESHOLD )
+				compactToIndex();
+			else
+				compactToSnapshot();
+		}
+		
+		private int countVersions() {
+			int count = 0;
+			for( ProjectVersions p : projects.values())
+				count += p.versions.size();
+			return count;
+		}
+		
+		/*
+		 * Write a new index generation. The projects in memory, which include
+		 * every project changed by the journal, take precedence. All other projects
+		 * are streamed from the current index into the new one, without reading them.
+		 */
+		private void compactToIndex() {
+			File part = new File(snapshot.getParentFile(), INDEX_PREFIX + "tmp"); //$NON-NLS-1$
+			BPELVersionIndex.Writer writer = null;
+			try {
+				BPELVersionIndex current = index;
+				writer = new BPELVersionIndex.Writer(part);
+				for( Map.Entry<String, ProjectVersions> e : projects.entrySet())
+					writer.addProject(e.getKey(), e.getValue().versions.values());
+				if( current != null ) {
+					for( String name : current.getProjectNames()) {
+						if( !projects.containsKey(name))
+							writer.addProject(name, current.cursor(name));
+					}
+				}
+				writer.write();
+				writer = null;
+				File next = getIndexFile(generation + 1);
+				BPELFileUtil.moveIntoPlace(part, next);
+				// the index must be replaced before the projects are forgotten, see getProject
+				index = BPELVersionIndex.open(next);
+				generation++;
+				binary = true;
+				projects.clear();
+				journal.clear();
+				pending.clear();
+				snapshot.delete();
+				deleteOldIndexes();
+			} catch( IOException ioe) {
+				if( writer != null )
+					writer.abort();
+				part.delete();
+				RuntimesPlugin.log(ioe);
+			}
+		}
+		
+		/*
+		 * Write a new snapshot next to the current one and move it into place, 
+		 * so a crash leaves either the old or the new snapshot intact.
+		 */
+		private void compactToSnapshot() {
+			File part = new File(snapshot.getParentFile(), snapshot.getName() + ".tmp"); //$NON-NLS-1$
+			FileOutputStream os = null;
+			try {
+				os = new FileOutputStream(part);
+				write().save(os);
+				os.getFD().sync();
+				os.close();
+				os = null;
+				BPELFileUtil.moveIntoPlace(part, snapshot);
+				journal.clear();
+				pending.clear();
+			} catch( IOException ioe) {
+				part.delete();
+				RuntimesPlugin.log(ioe);
+			} finally {
+				close(os);
+			}
+		}
+		
+		private static void close(Closeable c) {
+			if( c != null ) {
+				try {
+					c.close();
+				} catch(IOException ioe) {
+					// ignore
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Writes the descriptors with pending changes in the background 
+	 */
+	private static class SaveJob extends Job {
+		public SaveJob() {
+			super("Saving BPEL deployment descriptors"); //$NON-NLS-1$
+			setSystem(true);
+		}
+		
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			// changes made from here on need another save
+			savePending.set(false);
+			saveAll();
+			return Status.OK_STATUS;
+		}
 	}
-
 }
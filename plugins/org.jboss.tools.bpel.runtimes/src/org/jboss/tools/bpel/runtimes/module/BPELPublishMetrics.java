@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.osgi.service.debug.DebugTrace;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+
+/**
+ * The measurements of a single full publish of a BPEL module: the time 
+ * spent in each phase, the bytes written, the number of entries published
+ * and the number of errors. 
+ * 
+ * Measurements are passed to the registered {@link IBPELPublishMetricsListener}s
+ * and, when the <code>org.jboss.tools.bpel.runtimes/debug/publish</code>
+ * trace option is enabled, written to the platform trace.
+ */
+public class BPELPublishMetrics {
+	public static final String PHASE_COLLECT_MEMBERS = "collectMembers"; //$NON-NLS-1$
+	public static final String PHASE_VERIFY_DEPLOY_XML = "verifyDeployXml"; //$NON-NLS-1$
+	public static final String PHASE_FINGERPRINT = "fingerprint"; //$NON-NLS-1$
+	public static final String PHASE_BUILD_ARCHIVE = "buildArchive"; //$NON-NLS-1$
+	public static final String PHASE_COPY = "copy"; //$NON-NLS-1$
+	public static final String PHASE_DESCRIPTOR = "descriptor"; //$NON-NLS-1$
+	
+	private static final List<IBPELPublishMetricsListener> listeners = new CopyOnWriteArrayList<IBPELPublishMetricsListener>();
+	
+	private String serverId;
+	private String moduleName;
+	private long start;
+	private long end;
+	private Map<String, Long> phases = new LinkedHashMap<String, Long>();
+	private long bytesWritten;
+	private int entries;
+	private int errors;
+	private boolean skipped;
+	
+	public BPELPublishMetrics(String serverId, String moduleName) {
+		this.serverId = serverId;
+		this.moduleName = moduleName;
+		this.start = System.nanoTime();
+	}
+	
+	public static void addListener(IBPELPublishMetricsListener listener) {
+		listeners.add(listener);
+	}
+	
+	public static void removeListener(IBPELPublishMetricsListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * @return a mark to pass to {@link #end(String, long)}
+	 */
+	public long begin() {
+		return System.nanoTime();
+	}
+	
+	/**
+	 * Record the time spent in a phase since the given mark. 
+	 * Time spent in the same phase more than once is added up.
+	 * 
+	 * @param phase
+	 * @param mark
+	 */
+	public void end(String phase, long mark) {
+		long elapsed = System.nanoTime() - mark;
+		Long previous = phases.get(phase);
+		phases.put(phase, previous == null ? elapsed : previous + elapsed);
+	}
+	
+	public void addBytesWritten(long bytes) {
+		bytesWritten += bytes;
+	}
+	
+	public void setEntries(int entries) {
+		this.entries = entries;
+	}
+	
+	public void setErrors(int errors) {
+		this.errors = errors;
+	}
+	
+	/**
+	 * Mark this publish as skipped because the module content was unchanged
+	 */
+	public void setSkipped(boolean skipped) {
+		this.skipped = skipped;
+	}
+	
+	public String getServerId() { return serverId; }
+	public String getModuleName() { return moduleName; }
+	public long getBytesWritten() { return bytesWritten; }
+	public int getEntries() { return entries; }
+	public int getErrors() { return errors; }
+	public boolean isSkipped() { return skipped; }
+	
+	/**
+	 * @return the duration of each recorded phase in nanoseconds, in the order they ran
+	 */
+	public Map<String, Long> getPhaseDurations() {
+		return Collections.unmodifiableMap(phases);
+	}
+	
+	/**
+	 * @return the total duration of the publish in nanoseconds
+	 */
+	public long getTotalDuration() {
+		return (end == 0 ? System.nanoTime() : end) - start;
+	}
+	
+	/**
+	 * Close the measurement and hand it to the listeners
+	 */
+	public void finish() {
+		end = System.nanoTime();
+		for( final IBPELPublishMetricsListener l : listeners ) {
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					l.publishMeasured(BPELPublishMetrics.this);
+				}
+				public void handleException(Throwable exception) {
+					// logged by SafeRunner
+				}
+			});
+		}
+		DebugTrace trace = RuntimesPlugin.getTrace();
+		if( RuntimesPlugin.DEBUG_PUBLISH && trace != null )
+			trace.trace(RuntimesPlugin.TRACE_PUBLISH, toString());
+	}
+	
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append("BPEL publish of ").append(moduleName).append(" to ").append(serverId); //$NON-NLS-1$ //$NON-NLS-2$
+		sb.append(": ").append(TimeUnit.NANOSECONDS.toMillis(getTotalDuration())).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		for( Map.Entry<String, Long> e : phases.entrySet())
+			sb.append(", ").append(e.getKey()).append("=").append(TimeUnit.NANOSECONDS.toMillis(e.getValue())).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sb.append(", bytes=").append(bytesWritten); //$NON-NLS-1$
+		sb.append(", entries=").append(entries); //$NON-NLS-1$
+		sb.append(", errors=").append(errors); //$NON-NLS-1$
+		if( skipped )
+			sb.append(", skipped"); //$NON-NLS-1$
+		return sb.toString();
+	}
+}
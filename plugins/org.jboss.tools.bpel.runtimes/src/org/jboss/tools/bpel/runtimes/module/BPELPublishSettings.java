@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import org.eclipse.wst.server.core.IServer;
+
+/**
+ * Server attributes which tune how BPEL modules are published
+ * to a given server. They are edited in the server editor.
+ */
+public class BPELPublishSettings {
+	public static final String ATTRIBUTE_PREFIX = "org.jboss.tools.bpel.runtimes.publish."; //$NON-NLS-1$
+
+	/**
+	 * The number of threads used to build a BPEL archive, or to copy the files
+	 * of an exploded deployment. 0 means one thread per available processor, 
+	 * 1 disables parallel publishing.
+	 */
+	public static final String PUBLISH_PARALLELISM = ATTRIBUTE_PREFIX + "parallelism"; //$NON-NLS-1$
+	public static final int DEFAULT_PUBLISH_PARALLELISM = 0;
+	public static final int MAX_PUBLISH_PARALLELISM = 64;
+
+	/**
+	 * The number of most recent versions of each module to keep on the server.
+	 * 0 keeps all versions.
+	 */
+	public static final String RETAIN_VERSIONS = ATTRIBUTE_PREFIX + "retainVersions"; //$NON-NLS-1$
+	public static final int DEFAULT_RETAIN_VERSIONS = 0;
+
+	/**
+	 * The age in days after which a version is removed from the server.
+	 * 0 keeps versions regardless of age. The most recent version is always kept.
+	 */
+	public static final String RETAIN_DAYS = ATTRIBUTE_PREFIX + "retainDays"; //$NON-NLS-1$
+	public static final int DEFAULT_RETAIN_DAYS = 0;
+
+	private BPELPublishSettings() {
+	}
+
+	/**
+	 * Get the number of threads to use when publishing to this server
+	 *
+	 * @param server
+	 * @return a number of threads, always at least 1
+	 */
+	public static int getParallelism(IServer server) {
+		int value = server == null ? DEFAULT_PUBLISH_PARALLELISM :
+			server.getAttribute(PUBLISH_PARALLELISM, DEFAULT_PUBLISH_PARALLELISM);
+		if( value <= 0 )
+			return Runtime.getRuntime().availableProcessors();
+		return Math.min(value, MAX_PUBLISH_PARALLELISM);
+	}
+
+	public static int getRetainVersions(IServer server) {
+		return Math.max(0, server.getAttribute(RETAIN_VERSIONS, DEFAULT_RETAIN_VERSIONS));
+	}
+
+	public static int getRetainDays(IServer server) {
+		return Math.max(0, server.getAttribute(RETAIN_DAYS, DEFAULT_RETAIN_DAYS));
+	}
+
+	/**
+	 * @param server
+	 * @return true if old versions should be removed from this server automatically
+	 */
+	public static boolean hasRetentionPolicy(IServer server) {
+		return getRetainVersions(server) > 0 || getRetainDays(server) > 0;
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.ISafeRunnable;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.SafeRunner;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+
+/**
+ * Reports the result of BPEL publishes without blocking the publish thread.
+ * 
+ * Every result is passed to the registered {@link IBPELPublishListener}s. 
+ * Failures are also queued for the workbench, which drains the queue on 
+ * the UI thread and shows all failures collected so far in a single dialog. 
+ * When no workbench is running, failures are logged instead.
+ */
+public class BPELPublishStatusReporter {
+	private static final List<IBPELPublishListener> listeners = new CopyOnWriteArrayList<IBPELPublishListener>();
+	private static final ConcurrentLinkedQueue<IStatus> failures = new ConcurrentLinkedQueue<IStatus>();
+	private static final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+	private BPELPublishStatusReporter() {
+	}
+	
+	public static void addListener(IBPELPublishListener listener) {
+		listeners.add(listener);
+	}
+	
+	public static void removeListener(IBPELPublishListener listener) {
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Report the result of a publish. This method never blocks on the UI.
+	 * 
+	 * @param server
+	 * @param module
+	 * @param status
+	 */
+	public static void report(final IServer server, final IModule[] module, final IStatus status) {
+		for( final IBPELPublishListener l : listeners ) {
+			SafeRunner.run(new ISafeRunnable() {
+				public void run() throws Exception {
+					l.publishFinished(server, module, status);
+				}
+				public void handleException(Throwable exception) {
+					// logged by SafeRunner
+				}
+			});
+		}
+		
+		if( status == null || status.isOK())
+			return;
+		if( !PlatformUI.isWorkbenchRunning()) {
+			RuntimesPlugin.getPlugin().getLog().log(status);
+			return;
+		}
+		failures.add(status);
+		scheduleDrain();
+	}
+	
+	/*
+	 * The flag stays set until the dialog is closed, since the dialog runs 
+	 * its own event loop. Failures queued while it is open are shown in 
+	 * one more dialog once it closes.
+	 */
+	private static void scheduleDrain() {
+		if( drainScheduled.compareAndSet(false, true)) {
+			Display.getDefault().asyncExec(new Runnable() {
+				public void run() {
+					try {
+						showFailures();
+					} finally {
+						drainScheduled.set(false);
+					}
+					if( !failures.isEmpty())
+						scheduleDrain();
+				}
+			});
+		}
+	}
+	
+	/*
+	 * Runs on the UI thread
+	 */
+	private static void showFailures() {
+		List<IStatus> drained = new ArrayList<IStatus>();
+		IStatus s;
+		while((s = failures.poll()) != null)
+			drained.add(s);
+		if( drained.isEmpty())
+			return;
+		
+		// https://issues.jboss.org/browse/JBDS-1573
+		// Deployment validation should really be handled as a WizardFragment invoked from
+		// org.eclipse.wst.server.ui.internal.wizard.ModifyModulesWizard
+		// but there is no WizardFragment extension point for this class...
+		StringBuffer message = new StringBuffer();
+		for( int i = 0; i < drained.size(); i++ ) {
+			if( i > 0 )
+				message.append("\n\n"); //$NON-NLS-1$
+			message.append(drained.get(i).getMessage());
+		}
+		MessageDialog.openWarning(Display.getDefault().getActiveShell(), 
+				Messages.DeployError, message.toString());
+	}
+}
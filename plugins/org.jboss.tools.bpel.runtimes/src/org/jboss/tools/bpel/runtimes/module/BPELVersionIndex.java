@@ -0,0 +1,505 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compact, read-only binary form of a deployment history, 
+ * used by the {@link BPELPublishDescriptor} for servers with very 
+ * large histories. The file is memory mapped, so only the pages 
+ * which are actually read are loaded.
+ * 
+ * The file consists of a header, a table of fixed-size version records
+ * (the versions of each project are contiguous and oldest first), a table
+ * of fixed-size project records and a table of strings. Paths, fingerprints 
+ * and project names are stored once each in the string table and referred to 
+ * by index.
+ * 
+ * <pre>
+ * header:  magic, format, versionCount, projectCount, stringCount, 
+ *          projectTableOffset, stringTableOffset, reserved      (8 ints)
+ * version: pathId, hashId (int), size, publishStart, publishEnd (long)
+ * project: nameId, firstVersion, versionCount                   (3 ints)
+ * strings: stringCount offsets (int), then length (int) + UTF-8 bytes
+ * </pre>
+ * 
+ * Strings are compared as raw bytes where possible, so looking a version up
+ * decodes nothing but the version which is found.
+ */
+public class BPELVersionIndex {
+	private static final int MAGIC = 0x42505649; // BPVI
+	private static final int FORMAT = 1;
+	private static final int HEADER_SIZE = 32;
+	private static final int VERSION_RECORD_SIZE = 32;
+	private static final int PROJECT_RECORD_SIZE = 12;
+	private static final int NONE = -1;
+
+	private final ByteBuffer buffer;
+	private final int versionCount;
+	private final int stringCount;
+	private final int stringData;
+	private final int stringTable;
+	// project name -> project record offset. This grows with the
+	// number of projects, not with the number of versions
+	private final Map<String, Integer> projects;
+
+	private BPELVersionIndex(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if( buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT )
+			throw new IOException("Not a BPEL version index"); //$NON-NLS-1$
+		versionCount = buffer.getInt(8);
+		int projectCount = buffer.getInt(12);
+		stringCount = buffer.getInt(16);
+		int projectTable = buffer.getInt(20);
+		stringTable = buffer.getInt(24);
+		stringData = stringTable + 4 * stringCount;
+		if( versionCount < 0 || projectCount < 0 || stringCount < 0 
+				|| projectTable != HEADER_SIZE + (long)versionCount * VERSION_RECORD_SIZE
+				|| stringTable != projectTable + (long)projectCount * PROJECT_RECORD_SIZE
+				|| stringData < stringTable || stringData > buffer.limit()
+				|| (stringCount > 0 && !isInFile(stringCount - 1)))
+			throw corrupt();
+		projects = new HashMap<String, Integer>();
+		for( int i = 0; i < projectCount; i++ ) {
+			int offset = projectTable + i * PROJECT_RECORD_SIZE;
+			int first = buffer.getInt(offset + 4);
+			int count = buffer.getInt(offset + 8);
+			String name = getString(buffer.getInt(offset));
+			if( name == null || first < 0 || count < 0 || first + (long)count > versionCount )
+				throw corrupt();
+			projects.put(name, offset);
+		}
+	}
+
+	private static IOException corrupt() {
+		return new IOException("Corrupt BPEL version index"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Map an index file into memory
+	 * 
+	 * @param file
+	 * @return the index
+	 * @throws IOException if the file can not be read or is not a valid index
+	 */
+	public static BPELVersionIndex open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			FileChannel channel = raf.getChannel();
+			// the mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new BPELVersionIndex(buffer);
+		} finally {
+			raf.close();
+		}
+	}
+
+	public int getVersionCount() {
+		return versionCount;
+	}
+
+	public Set<String> getProjectNames() {
+		return projects.keySet();
+	}
+
+	/**
+	 * @param project the project name
+	 * @return the number of versions of the project
+	 */
+	public int getVersionCount(String project) {
+		Integer offset = projects.get(project);
+		return offset == null ? 0 : buffer.getInt(offset + 8);
+	}
+
+	/**
+	 * Read all versions of a project
+	 * 
+	 * @param project the project name
+	 * @return the versions, oldest first
+	 */
+	public BPELDeployedVersion[] getVersions(String project) {
+		Cursor c = cursor(project);
+		BPELDeployedVersion[] result = new BPELDeployedVersion[c.getCount()];
+		for( int i = 0; c.next(); i++ )
+			result[i] = c.getVersion();
+		return result;
+	}
+
+	/**
+	 * Get a cursor over the versions of a project. The cursor reads
+	 * the numeric values of a version straight from the mapped file,
+	 * only the path and fingerprint are decoded, and only when asked for.
+	 * 
+	 * @param project the project name
+	 * @return a cursor positioned before the first version
+	 */
+	public Cursor cursor(String project) {
+		Integer offset = projects.get(project);
+		if( offset == null )
+			return new Cursor(0, 0);
+		return new Cursor(buffer.getInt(offset + 4), buffer.getInt(offset + 8));
+	}
+
+	/**
+	 * Look up a version of a project by its path, newest first
+	 * 
+	 * @param project the project name
+	 * @param path the deployed path
+	 * @return the version, or null if the project has no such version
+	 */
+	public BPELDeployedVersion findVersion(String project, String path) {
+		byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+		Cursor c = cursor(project);
+		for( int i = c.getCount() - 1; i >= 0; i-- ) {
+			c.seek(i);
+			c.next();
+			if( c.pathEquals(bytes))
+				return c.getVersion();
+		}
+		return null;
+	}
+
+	/*
+	 * The offset of a string's length field, or -1 if it lies outside the file
+	 */
+	private int getStringOffset(int id) {
+		long offset = stringData + (long)buffer.getInt(stringTable + 4 * id);
+		return offset < stringData || offset + 4 > buffer.limit() ? -1 : (int)offset;
+	}
+
+	/*
+	 * Strings are written in order, so a truncated file cuts the last one short
+	 */
+	private boolean isInFile(int id) {
+		int offset = getStringOffset(id);
+		if( offset == -1 )
+			return false;
+		int length = buffer.getInt(offset);
+		return length >= 0 && offset + 4L + length <= buffer.limit();
+	}
+
+	private int getStringLength(int offset) {
+		int length = buffer.getInt(offset);
+		if( length < 0 || offset + 4L + length > buffer.limit())
+			throw new IllegalStateException("Corrupt BPEL version index"); //$NON-NLS-1$
+		return length;
+	}
+
+	private String getString(int id) {
+		if( id < 0 || id >= stringCount )
+			return null;
+		int offset = getStringOffset(id);
+		if( offset == -1 )
+			return null;
+		byte[] bytes = new byte[getStringLength(offset)];
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset + 4);
+		slice.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private boolean stringEquals(int id, byte[] bytes) {
+		if( id < 0 || id >= stringCount )
+			return false;
+		int offset = getStringOffset(id);
+		if( offset == -1 || getStringLength(offset) != bytes.length )
+			return false;
+		for( int i = 0; i < bytes.length; i++ ) {
+			if( buffer.get(offset + 4 + i) != bytes[i] )
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Iterates over the versions of one project, oldest first.
+	 * A cursor may be moved to any position, to read a page of versions.
+	 */
+	public class Cursor {
+		private final int first;
+		private final int count;
+		private int position = -1;
+
+		private Cursor(int first, int count) {
+			this.first = first;
+			this.count = count;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * Move to the next version
+		 * @return false if there are no more versions
+		 */
+		public boolean next() {
+			if( position + 1 >= count )
+				return false;
+			position++;
+			return true;
+		}
+
+		/**
+		 * Position the cursor so that {@link #next()} moves to the given version
+		 * @param index the index of a version, 0 being the oldest
+		 */
+		public void seek(int index) {
+			position = Math.max(-1, Math.min(count, index) - 1);
+		}
+
+		public int getIndex() {
+			return position;
+		}
+
+		private BPELVersionIndex getSource() {
+			return BPELVersionIndex.this;
+		}
+
+		private int offset() {
+			if( position < 0 || position >= count )
+				throw new IllegalStateException();
+			return HEADER_SIZE + (first + position) * VERSION_RECORD_SIZE;
+		}
+
+		public String getPath() {
+			return getString(buffer.getInt(offset()));
+		}
+
+		public String getHash() {
+			return getString(buffer.getInt(offset() + 4));
+		}
+
+		/**
+		 * Compare the path of the current version without decoding it
+		 * 
+		 * @param path the UTF-8 bytes of a path
+		 * @return true if the current version has this path
+		 */
+		public boolean pathEquals(byte[] path) {
+			return stringEquals(buffer.getInt(offset()), path);
+		}
+
+		public long getSize() {
+			return buffer.getLong(offset() + 8);
+		}
+
+		public long getPublishStart() {
+			return buffer.getLong(offset() + 16);
+		}
+
+		public long getPublishEnd() {
+			return buffer.getLong(offset() + 24);
+		}
+
+		public BPELDeployedVersion getVersion() {
+			return new BPELDeployedVersion(getPath(), getHash(), getSize(), getPublishStart(), getPublishEnd());
+		}
+	}
+
+	/**
+	 * Builds an index file one project at a time. Version records and strings 
+	 * are spilled to temporary files next to the index as they are added, so 
+	 * only the project records are held in memory. Versions copied from another
+	 * index are copied as raw bytes, without decoding their strings.
+	 */
+	public static class Writer {
+		private final File file;
+		private final File versionFile;
+		private final File offsetFile;
+		private final File stringFile;
+		private final DataOutputStream versionRecords;
+		private final DataOutputStream stringOffsets;
+		private final DataOutputStream strings;
+		private final List<int[]> projectRecords = new ArrayList<int[]>();
+		// each distinct string is written once and shared by all records using it
+		private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+		private int versionCount = 0;
+		private int stringCount = 0;
+		private int stringSize = 0;
+
+		/**
+		 * @param file the index to create
+		 * @throws IOException
+		 */
+		public Writer(File file) throws IOException {
+			this.file = file;
+			versionFile = new File(file.getPath() + ".versions"); //$NON-NLS-1$
+			offsetFile = new File(file.getPath() + ".offsets"); //$NON-NLS-1$
+			stringFile = new File(file.getPath() + ".strings"); //$NON-NLS-1$
+			versionRecords = open(versionFile);
+			stringOffsets = open(offsetFile);
+			strings = open(stringFile);
+		}
+
+		private static DataOutputStream open(File f) throws IOException {
+			return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+		}
+
+		public void addProject(String name, Collection<BPELDeployedVersion> versions) throws IOException {
+			if( versions.isEmpty())
+				return;
+			projectRecords.add(new int[] { addString(name), versionCount, versions.size() });
+			for( BPELDeployedVersion v : versions ) {
+				versionRecords.writeInt(addString(v.getPath()));
+				versionRecords.writeInt(addString(v.getHash()));
+				versionRecords.writeLong(v.getSize());
+				versionRecords.writeLong(v.getPublishStart());
+				versionRecords.writeLong(v.getPublishEnd());
+				versionCount++;
+			}
+		}
+
+		/**
+		 * Copy the versions of a project from another index
+		 * 
+		 * @param name the project name
+		 * @param c a cursor over the versions of the project in the other index
+		 * @throws IOException
+		 */
+		public void addProject(String name, Cursor c) throws IOException {
+			if( c.getCount() == 0 )
+				return;
+			projectRecords.add(new int[] { addString(name), versionCount, c.getCount() });
+			BPELVersionIndex source = c.getSource();
+			c.seek(0);
+			while( c.next()) {
+				int offset = c.offset();
+				versionRecords.writeInt(copyString(source, source.buffer.getInt(offset)));
+				versionRecords.writeInt(copyString(source, source.buffer.getInt(offset + 4)));
+				versionRecords.writeLong(c.getSize());
+				versionRecords.writeLong(c.getPublishStart());
+				versionRecords.writeLong(c.getPublishEnd());
+				versionCount++;
+			}
+		}
+
+		public int getVersionCount() {
+			return versionCount;
+		}
+
+		private int addString(String s) throws IOException {
+			if( s == null )
+				return NONE;
+			Integer id = stringIds.get(s);
+			if( id != null )
+				return id.intValue();
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			stringOffsets.writeInt(stringSize);
+			strings.writeInt(bytes.length);
+			strings.write(bytes);
+			stringSize += 4 + bytes.length;
+			stringIds.put(s, Integer.valueOf(stringCount));
+			return stringCount++;
+		}
+
+		private int copyString(BPELVersionIndex source, int id) throws IOException {
+			return addString(source.getString(id));
+		}
+
+		/**
+		 * Write the index and force it to disk. The temporary files are removed.
+		 * 
+		 * @throws IOException
+		 */
+		public void write() throws IOException {
+			int projectTable = HEADER_SIZE + versionCount * VERSION_RECORD_SIZE;
+			int stringTable = projectTable + projectRecords.size() * PROJECT_RECORD_SIZE;
+			try {
+				versionRecords.close();
+				stringOffsets.close();
+				strings.close();
+				FileOutputStream fos = new FileOutputStream(file);
+				try {
+					DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT);
+					out.writeInt(versionCount);
+					out.writeInt(projectRecords.size());
+					out.writeInt(stringCount);
+					out.writeInt(projectTable);
+					out.writeInt(stringTable);
+					out.writeInt(0);
+					append(versionFile, out);
+					for( int[] p : projectRecords ) {
+						out.writeInt(p[0]);
+						out.writeInt(p[1]);
+						out.writeInt(p[2]);
+					}
+					append(offsetFile, out);
+					append(stringFile, out);
+					out.flush();
+					fos.getFD().sync();
+				} finally {
+					fos.close();
+				}
+			} finally {
+				deleteTemporaryFiles();
+			}
+		}
+
+		/**
+		 * Give up on the index, removing everything written so far
+		 */
+		public void abort() {
+			close(versionRecords);
+			close(stringOffsets);
+			close(strings);
+			deleteTemporaryFiles();
+			file.delete();
+		}
+
+		private void deleteTemporaryFiles() {
+			versionFile.delete();
+			offsetFile.delete();
+			stringFile.delete();
+		}
+
+		private static void append(File f, OutputStream out) throws IOException {
+			InputStream in = new FileInputStream(f);
+			try {
+				byte[] buffer = new byte[64 * 1024];
+				int read;
+				while((read = in.read(buffer)) != -1)
+					out.write(buffer, 0, read);
+			} finally {
+				in.close();
+			}
+		}
+
+		private static void close(OutputStream os) {
+			try {
+				os.close();
+			} catch(IOException ioe) {
+				// ignore
+			}
+		}
+	}
+}
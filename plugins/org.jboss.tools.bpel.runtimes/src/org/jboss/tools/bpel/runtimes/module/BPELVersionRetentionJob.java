@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.IServer;
+import org.jboss.ide.eclipse.as.core.util.JBossServerBehaviorUtils;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IControllableServerBehavior;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.LocalFilesystemController;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+import org.jboss.tools.bpel.runtimes.module.publish.ParallelDeleteRunner;
+
+/**
+ * Removes the versions of a BPEL module which fall outside the
+ * server's retention policy. This runs in the background after a
+ * publish, so the publish itself never waits on the deletions.
+ *
+ * The most recently deployed version is never removed.
+ * 
+ * Jobs for the same server never run at the same time, and a publish
+ * only schedules a job if none is waiting for the project yet, since a
+ * job always reads the versions to remove when it starts.
+ *
+ * @see BPELPublishSettings#RETAIN_VERSIONS
+ * @see BPELPublishSettings#RETAIN_DAYS
+ */
+public class BPELVersionRetentionJob extends Job {
+	private static final int BATCH_SIZE = 20;
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	// Lets a burst of publishes share a single job
+	private static final long DELAY = 1000;
+	// Jobs which were scheduled but have not started yet
+	private static final Map<String, BPELVersionRetentionJob> waiting = new HashMap<String, BPELVersionRetentionJob>();
+
+	private IServer server;
+	private IProject project;
+
+	public BPELVersionRetentionJob(IServer server, IProject project) {
+		super(NLS.bind("Removing old versions of {0}", project.getName())); //$NON-NLS-1$
+		this.server = server;
+		this.project = project;
+		setSystem(true);
+		setRule(new ServerRule(server.getId()));
+	}
+
+	/**
+	 * Remove the expired versions of a project soon, 
+	 * unless a removal is already waiting to run
+	 * 
+	 * @param server
+	 * @param project
+	 */
+	public static void schedule(IServer server, IProject project) {
+		String key = getKey(server, project);
+		synchronized(waiting) {
+			BPELVersionRetentionJob job = waiting.get(key);
+			// a cancelled job never starts, so it must be replaced
+			if( job != null && job.getState() != Job.NONE )
+				return;
+			job = new BPELVersionRetentionJob(server, project);
+			waiting.put(key, job);
+			job.schedule(DELAY);
+		}
+	}
+
+	private static String getKey(IServer server, IProject project) {
+		return server.getId() + '/' + project.getName();
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == BPELVersionRetentionJob.class;
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		// from here on, a new publish needs another job
+		synchronized(waiting) {
+			if( waiting.get(getKey(server, project)) == this )
+				waiting.remove(getKey(server, project));
+		}
+		String[] expired = getExpiredVersions(
+				BPELPublishDescriptor.getDeployedVersions(server, project),
+				BPELPublishSettings.getRetainVersions(server),
+				BPELPublishSettings.getRetainDays(server),
+				System.currentTimeMillis());
+		if( expired.length == 0 )
+			return Status.OK_STATUS;
+
+		IFilesystemController controller = getFilesystemController(server);
+		if( controller == null )
+			return Status.OK_STATUS;
+
+		monitor.beginTask(getName(), expired.length);
+		MultiStatus ms = new MultiStatus(RuntimesPlugin.PLUGIN_ID, 0,
+				NLS.bind("Unable to remove old versions of {0}", project.getName()), null); //$NON-NLS-1$
+		// Only the local controller is known to be safe to call from several threads
+		int parallelism = controller instanceof LocalFilesystemController ? BPELPublishSettings.getParallelism(server) : 1;
+		ParallelDeleteRunner runner = new ParallelDeleteRunner(controller, parallelism);
+		for( int i = 0; i < expired.length && !monitor.isCanceled(); i += BATCH_SIZE ) {
+			String[] batch = Arrays.copyOfRange(expired, i, Math.min(expired.length, i + BATCH_SIZE));
+			IStatus[] results = runner.delete(batch, monitor);
+			List<String> removed = new ArrayList<String>();
+			for( int j = 0; j < batch.length; j++ ) {
+				if( results[j].isOK())
+					removed.add(batch[j]);
+				else if( results[j].getSeverity() != IStatus.CANCEL )
+					ms.add(results[j]);
+			}
+			// One descriptor update per batch
+			BPELPublishDescriptor.removeVersionsFromDescriptor(server, project,
+					removed.toArray(new String[removed.size()]));
+		}
+		monitor.done();
+		if( !ms.isOK())
+			RuntimesPlugin.getPlugin().getLog().log(ms);
+		return Status.OK_STATUS;
+	}
+
+	/*
+	 * Serializes the jobs which delete from the same server
+	 */
+	private static class ServerRule implements ISchedulingRule {
+		private String serverId;
+		public ServerRule(String serverId) {
+			this.serverId = serverId;
+		}
+		public boolean contains(ISchedulingRule rule) {
+			return rule == this;
+		}
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule instanceof ServerRule && ((ServerRule)rule).serverId.equals(serverId);
+		}
+	}
+
+	static IFilesystemController getFilesystemController(IServer server) {
+		IControllableServerBehavior beh = JBossServerBehaviorUtils.getControllableBehavior(server);
+		if( beh == null )
+			return null;
+		try {
+			return (IFilesystemController)beh.getController(IFilesystemController.SYSTEM_ID);
+		} catch(CoreException ce) {
+			RuntimesPlugin.log(ce);
+			return null;
+		}
+	}
+
+	/**
+	 * Select the versions which fall outside a retention policy. The age of a
+	 * version is taken from its recorded publish time where available.
+	 *
+	 * @param versions the deployed versions, oldest first
+	 * @param retainVersions the number of versions to keep, or 0
+	 * @param retainDays the maximum age in days, or 0
+	 * @param now the current time
+	 * @return the paths of the versions to remove, oldest first
+	 */
+	public static String[] getExpiredVersions(BPELDeployedVersion[] versions, int retainVersions, int retainDays, long now) {
+		List<String> expired = new ArrayList<String>();
+		long cutoff = now - retainDays * DAY;
+		// the last entry is the current version, which is always kept
+		for( int i = 0; i < versions.length - 1; i++ ) {
+			boolean tooMany = retainVersions > 0 && i < versions.length - retainVersions;
+			long stamp = retainDays > 0 ? versions[i].getTimestamp() : -1;
+			boolean tooOld = stamp != -1 && stamp < cutoff;
+			if( tooMany || tooOld )
+				expired.add(versions[i].getPath());
+		}
+		return expired.toArray(new String[expired.size()]);
+	}
+
+	/**
+	 * Get the time a version was published from the timestamp in its name
+	 *
+	 * @param path a path of the form .../module-yyyyMMddHHmmss.jar
+	 * @return the time in milliseconds, or -1 if the name has no timestamp
+	 */
+	public static long getVersionTimestamp(String path) {
+		String name = new Path(path).removeFileExtension().lastSegment();
+		if( name == null || name.length() < 15 || name.charAt(name.length() - 15) != '-' )
+			return -1;
+		try {
+			return new SimpleDateFormat("yyyyMMddHHmmss").parse(name.substring(name.length() - 14)).getTime(); //$NON-NLS-1$
+		} catch(ParseException pe) {
+			return -1;
+		}
+	}
+}
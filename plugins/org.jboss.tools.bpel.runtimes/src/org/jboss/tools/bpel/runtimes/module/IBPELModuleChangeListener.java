@@ -0,0 +1,29 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+/**
+ * Receives the batched changes to BPEL modules.
+ * 
+ * Changes made within a short window are coalesced into a single event, 
+ * which is delivered on a background thread after WTP has been told the
+ * modules changed. Listeners must return quickly.
+ * 
+ * @see BPELModuleFactoryDelegate#addModuleChangeListener(IBPELModuleChangeListener)
+ */
+public interface IBPELModuleChangeListener {
+	/**
+	 * The modules of some projects have changed
+	 * 
+	 * @param event the projects affected
+	 */
+	public void modulesChanged(BPELModuleChangeEvent event);
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+
+/**
+ * Receives the result of every BPEL module publish.
+ * 
+ * Listeners are called on the publish thread and must return quickly;
+ * anything slow should be handed off to a job.
+ * 
+ * @see BPELPublishStatusReporter#addListener(IBPELPublishListener)
+ */
+public interface IBPELPublishListener {
+	/**
+	 * A publish request for a BPEL module has completed
+	 * 
+	 * @param server the server published to
+	 * @param module the module tree that was published
+	 * @param status the result of the publish
+	 */
+	public void publishFinished(IServer server, IModule[] module, IStatus status);
+}
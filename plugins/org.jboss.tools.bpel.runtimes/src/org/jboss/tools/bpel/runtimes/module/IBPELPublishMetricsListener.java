@@ -0,0 +1,26 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module;
+
+/**
+ * Receives the measurements taken during each full publish of a BPEL module.
+ * Listeners are called on the publish thread and must return quickly.
+ * 
+ * @see BPELPublishMetrics#addListener(IBPELPublishMetricsListener)
+ */
+public interface IBPELPublishMetricsListener {
+	/**
+	 * A full publish has finished, successfully or not
+	 * 
+	 * @param metrics the measurements of the publish
+	 */
+	public void publishMeasured(BPELPublishMetrics metrics);
+}
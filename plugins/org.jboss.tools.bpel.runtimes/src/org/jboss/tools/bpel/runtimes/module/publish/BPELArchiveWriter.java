@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module.publish;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+import org.jboss.tools.bpel.runtimes.module.BPELFileUtil;
+
+/**
+ * Writes the flattened members of a BPEL module as a zip archive
+ * directly into an output stream, without staging it anywhere first.
+ */
+public class BPELArchiveWriter {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	protected IModuleResource[] members;
+
+	public BPELArchiveWriter(IModuleResource[] members) {
+		this.members = members;
+	}
+
+	/**
+	 * Write the archive to the given file. The archive is first written
+	 * to a hidden sibling of the destination and then moved into place,
+	 * so a deployment scanner never observes a partially written jar.
+	 *
+	 * @param destination the archive to create
+	 * @param monitor
+	 * @return the status of the operation
+	 */
+	public IStatus writeTo(File destination, IProgressMonitor monitor) {
+		File parent = destination.getParentFile();
+		if( parent != null && !parent.exists())
+			parent.mkdirs();
+		File part = new File(parent, "." + destination.getName() + ".part"); //$NON-NLS-1$ //$NON-NLS-2$
+		boolean moved = false;
+		try {
+			OutputStream os = new BufferedOutputStream(new FileOutputStream(part), BUFFER_SIZE);
+			try {
+				write(os, monitor);
+			} finally {
+				os.close();
+			}
+			BPELFileUtil.moveIntoPlace(part, destination);
+			moved = true;
+			return Status.OK_STATUS;
+		} catch(IOException ioe) {
+			return new Status(IStatus.ERROR, RuntimesPlugin.PLUGIN_ID,
+					NLS.bind("Unable to write archive {0}", destination.getAbsolutePath()), ioe); //$NON-NLS-1$
+		} catch(CoreException ce) {
+			return ce.getStatus();
+		} finally {
+			// never leave a partial archive behind, whatever went wrong
+			if( !moved )
+				part.delete();
+		}
+	}
+
+	/**
+	 * Compress all members into the given stream. The stream is finished
+	 * as a zip, but not closed.
+	 *
+	 * @param os
+	 * @param monitor
+	 * @throws IOException
+	 * @throws CoreException if the monitor was cancelled
+	 */
+	public void write(OutputStream os, IProgressMonitor monitor) throws IOException, CoreException {
+		if( monitor == null )
+			monitor = new NullProgressMonitor();
+		ZipOutputStream zos = new ZipOutputStream(os);
+		byte[] buffer = new byte[BUFFER_SIZE];
+		writeMembers(zos, members, buffer, monitor);
+		zos.finish();
+	}
+
+	private void writeMembers(ZipOutputStream zos, IModuleResource[] resources,
+			byte[] buffer, IProgressMonitor monitor) throws IOException, CoreException {
+		for( int i = 0; i < resources.length; i++ ) {
+			if( monitor.isCanceled())
+				throw new CoreException(Status.CANCEL_STATUS);
+			String entryName = getEntryName(resources[i]);
+			if( resources[i] instanceof IModuleFolder ) {
+				zos.putNextEntry(new ZipEntry(entryName + "/")); //$NON-NLS-1$
+				zos.closeEntry();
+				writeMembers(zos, ((IModuleFolder)resources[i]).members(), buffer, monitor);
+			} else if( resources[i] instanceof IModuleFile ) {
+				IModuleFile mf = (IModuleFile)resources[i];
+				InputStream is = openStream(mf);
+				try {
+					ZipEntry entry = new ZipEntry(entryName);
+					entry.setTime(getLastModified(mf));
+					zos.putNextEntry(entry);
+					int read;
+					while((read = is.read(buffer)) != -1)
+						zos.write(buffer, 0, read);
+				} finally {
+					is.close();
+				}
+				zos.closeEntry();
+			}
+		}
+	}
+
+	protected static String getEntryName(IModuleResource res) {
+		return res.getModuleRelativePath().append(res.getName()).makeRelative().toPortableString();
+	}
+
+	/**
+	 * Get the file on disk backing a module file. Module files are 
+	 * backed by either a workspace file or a plain file.
+	 * 
+	 * @param mf
+	 * @return the file, or null if it has no local location
+	 */
+	public static File getFile(IModuleFile mf) {
+		IFile ifile = (IFile)mf.getAdapter(IFile.class);
+		if( ifile != null ) {
+			IPath location = ifile.getLocation();
+			return location == null ? null : location.toFile();
+		}
+		return (File)mf.getAdapter(File.class);
+	}
+	
+	/**
+	 * Open the content of a module file, from disk where it has a local
+	 * file and from the workspace otherwise.
+	 * 
+	 * @param mf
+	 * @return the content, to be closed by the caller
+	 * @throws IOException if the file cannot be read
+	 * @throws CoreException if the module file has no content to read
+	 */
+	public static InputStream openStream(IModuleFile mf) throws IOException, CoreException {
+		File f = getFile(mf);
+		if( f != null )
+			return new FileInputStream(f);
+		IFile ifile = (IFile)mf.getAdapter(IFile.class);
+		if( ifile != null )
+			return ifile.getContents(true);
+		throw new CoreException(new Status(IStatus.ERROR, RuntimesPlugin.PLUGIN_ID,
+				NLS.bind("Unable to read {0}", getEntryName(mf)))); //$NON-NLS-1$
+	}
+	
+	/**
+	 * @param mf
+	 * @return the size of a module file in bytes, or -1 if it has no local file
+	 */
+	public static long getSize(IModuleFile mf) {
+		File f = getFile(mf);
+		return f == null ? -1 : f.length();
+	}
+	
+	protected static long getLastModified(IModuleFile mf) {
+		File f = getFile(mf);
+		if( f != null )
+			return f.lastModified();
+		IFile ifile = (IFile)mf.getAdapter(IFile.class);
+		if( ifile != null && ifile.getLocalTimeStamp() != IResource.NULL_STAMP )
+			return ifile.getLocalTimeStamp();
+		return System.currentTimeMillis();
+	}
+}
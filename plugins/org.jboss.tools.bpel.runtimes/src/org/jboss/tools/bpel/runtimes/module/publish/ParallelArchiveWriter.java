@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module.publish;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+
+/**
+ * An archive writer which deflates entries concurrently on a fork-join pool.
+ *
+ * Entries are compressed independently and then written to the stream
+ * in module order, along with the zip headers and central directory,
+ * so the result is the same valid archive the sequential writer creates.
+ * Only a bounded window of compressed entries is held in memory at once,
+ * limited both in number and in bytes. Large files are never held in memory,
+ * they are compressed straight into the stream when their turn comes.
+ */
+public class ParallelArchiveWriter extends BPELArchiveWriter {
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int END_SIG = 0x06054b50;
+	private static final int VERSION = 20;
+	private static final int UTF8_FLAG = 0x0800;
+	// The sizes and checksum follow the data, for entries streamed as they are compressed
+	private static final int DESCRIPTOR_FLAG = 0x0008;
+	private static final int DESCRIPTOR_SIG = 0x08074b50;
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	// Without zip64 support, larger archives go through the sequential writer
+	private static final int MAX_ENTRIES = 0xFFFF;
+	private static final long MAX_SIZE = 0xFFFFFFFFL;
+	// Files larger than this are streamed instead of compressed ahead
+	static final long MAX_BUFFERED_ENTRY = 8L * 1024 * 1024;
+	// The most uncompressed bytes compressed ahead of the writer at once
+	static final long MAX_WINDOW_BYTES = 32L * 1024 * 1024;
+
+	private int parallelism;
+
+	public ParallelArchiveWriter(IModuleResource[] members, int parallelism) {
+		super(members);
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	@Override
+	public void write(OutputStream os, IProgressMonitor monitor) throws IOException, CoreException {
+		if( monitor == null )
+			monitor = new NullProgressMonitor();
+		List<PendingEntry> entries = new ArrayList<PendingEntry>();
+		collectEntries(members, entries);
+		if( parallelism == 1 || entries.size() > MAX_ENTRIES || exceedsMaxSize(entries)) {
+			super.write(os, monitor);
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			writeEntries(new CountingOutputStream(os), entries, pool, monitor);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void writeEntries(CountingOutputStream out, List<PendingEntry> entries,
+			ForkJoinPool pool, IProgressMonitor monitor) throws IOException, CoreException {
+		// Keep a few tasks per worker in flight so compression stays ahead of writing
+		int window = parallelism * 4;
+		LinkedList<PendingEntry> inFlight = new LinkedList<PendingEntry>();
+		long inFlightBytes = 0;
+		List<DeflatedEntry> written = new ArrayList<DeflatedEntry>(entries.size());
+		int next = 0;
+		while( next < entries.size() || !inFlight.isEmpty()) {
+			while( next < entries.size() && inFlight.size() < window ) {
+				PendingEntry p = entries.get(next);
+				if( p.isBuffered()) {
+					if( !inFlight.isEmpty() && inFlightBytes + p.size > MAX_WINDOW_BYTES )
+						break;
+					p.task = pool.submit(new DeflateTask(p));
+					inFlightBytes += p.size;
+				}
+				inFlight.add(p);
+				next++;
+			}
+			if( monitor.isCanceled())
+				throw new CoreException(Status.CANCEL_STATUS);
+			PendingEntry p = inFlight.removeFirst();
+			DeflatedEntry entry;
+			if( p.task == null ) {
+				entry = writeStreamed(out, p);
+			} else {
+				inFlightBytes -= p.size;
+				entry = join(p.task);
+				entry.offset = out.count;
+				writeLocalHeader(out, entry);
+				if( entry.data != null )
+					out.write(entry.data, 0, (int)entry.compressedSize);
+				// Only the header fields are needed for the central directory
+				entry.data = null;
+			}
+			written.add(entry);
+		}
+
+		long centralOffset = out.count;
+		for( DeflatedEntry entry : written )
+			writeCentralHeader(out, entry);
+		long centralSize = out.count - centralOffset;
+		writeInt(out, END_SIG);
+		writeShort(out, 0);
+		writeShort(out, 0);
+		writeShort(out, written.size());
+		writeShort(out, written.size());
+		writeInt(out, (int)centralSize);
+		writeInt(out, (int)centralOffset);
+		writeShort(out, 0);
+		out.flush();
+	}
+
+	/*
+	 * Compress a large entry straight into the stream, 
+	 * with its sizes and checksum in a descriptor after the data
+	 */
+	private DeflatedEntry writeStreamed(CountingOutputStream out, PendingEntry p) throws IOException, CoreException {
+		DeflatedEntry e = new DeflatedEntry(p);
+		e.flags |= DESCRIPTOR_FLAG;
+		e.offset = out.count;
+		writeLocalHeader(out, e);
+		long start = out.count;
+		deflate(p.file, e, out);
+		e.compressedSize = out.count - start;
+		writeInt(out, DESCRIPTOR_SIG);
+		writeInt(out, (int)e.crc);
+		writeInt(out, (int)e.compressedSize);
+		writeInt(out, (int)e.size);
+		return e;
+	}
+
+	/*
+	 * A failed entry carries its failure back to the writer. Anything the task
+	 * did not catch arrives wrapped by the fork-join framework, maybe more than once.
+	 */
+	private DeflatedEntry join(ForkJoinTask<DeflatedEntry> task) throws IOException, CoreException {
+		DeflatedEntry e;
+		try {
+			e = task.join();
+		} catch(RuntimeException re) {
+			for( Throwable t = re; t != null; t = t.getCause()) {
+				if( t instanceof IOException )
+					throw (IOException)t;
+				if( t instanceof CoreException )
+					throw (CoreException)t;
+			}
+			throw re;
+		}
+		if( e.failure instanceof IOException )
+			throw (IOException)e.failure;
+		if( e.failure instanceof CoreException )
+			throw (CoreException)e.failure;
+		return e;
+	}
+
+	private void collectEntries(IModuleResource[] resources, List<PendingEntry> entries) {
+		for( int i = 0; i < resources.length; i++ ) {
+			if( resources[i] instanceof IModuleFolder ) {
+				entries.add(new PendingEntry(getEntryName(resources[i]) + "/", null)); //$NON-NLS-1$
+				collectEntries(((IModuleFolder)resources[i]).members(), entries);
+			} else if( resources[i] instanceof IModuleFile ) {
+				entries.add(new PendingEntry(getEntryName(resources[i]), (IModuleFile)resources[i]));
+			}
+		}
+	}
+
+	/*
+	 * Files without a local copy have no known size, so they may be large as well
+	 */
+	private boolean exceedsMaxSize(List<PendingEntry> entries) {
+		long total = 0;
+		for( PendingEntry e : entries ) {
+			if( e.file != null ) {
+				long size = getSize(e.file);
+				if( size < 0 )
+					return true;
+				total += size;
+			}
+			if( total >= MAX_SIZE )
+				return true;
+		}
+		return false;
+	}
+
+	private void writeLocalHeader(OutputStream out, DeflatedEntry e) throws IOException {
+		writeInt(out, LOCAL_HEADER_SIG);
+		writeShort(out, VERSION);
+		writeShort(out, e.flags);
+		writeShort(out, e.method);
+		writeInt(out, e.dosTime);
+		// the descriptor after the data holds these for a streamed entry
+		boolean streamed = (e.flags & DESCRIPTOR_FLAG) != 0;
+		writeInt(out, streamed ? 0 : (int)e.crc);
+		writeInt(out, streamed ? 0 : (int)e.compressedSize);
+		writeInt(out, streamed ? 0 : (int)e.size);
+		writeShort(out, e.name.length);
+		writeShort(out, 0);
+		out.write(e.name);
+	}
+
+	private void writeCentralHeader(OutputStream out, DeflatedEntry e) throws IOException {
+		writeInt(out, CENTRAL_HEADER_SIG);
+		writeShort(out, VERSION);
+		writeShort(out, VERSION);
+		writeShort(out, e.flags);
+		writeShort(out, e.method);
+		writeInt(out, e.dosTime);
+		writeInt(out, (int)e.crc);
+		writeInt(out, (int)e.compressedSize);
+		writeInt(out, (int)e.size);
+		writeShort(out, e.name.length);
+		writeShort(out, 0);
+		writeShort(out, 0);
+		writeShort(out, 0);
+		writeShort(out, 0);
+		writeInt(out, 0);
+		writeInt(out, (int)e.offset);
+		out.write(e.name);
+	}
+
+	private static void writeShort(OutputStream out, int v) throws IOException {
+		out.write(v & 0xff);
+		out.write((v >>> 8) & 0xff);
+	}
+
+	private static void writeInt(OutputStream out, int v) throws IOException {
+		writeShort(out, v & 0xffff);
+		writeShort(out, (v >>> 16) & 0xffff);
+	}
+
+	private static int toDosTime(long time) {
+		Calendar cal = Calendar.getInstance();
+		cal.setTimeInMillis(time);
+		int year = cal.get(Calendar.YEAR);
+		if( year < 1980 )
+			return (1 << 21) | (1 << 16);
+		return (year - 1980) << 25 | (cal.get(Calendar.MONTH) + 1) << 21
+				| cal.get(Calendar.DAY_OF_MONTH) << 16 | cal.get(Calendar.HOUR_OF_DAY) << 11
+				| cal.get(Calendar.MINUTE) << 5 | cal.get(Calendar.SECOND) >> 1;
+	}
+
+	private static class PendingEntry {
+		private String name;
+		// null for a folder
+		private IModuleFile file;
+		private long size;
+		private ForkJoinTask<DeflatedEntry> task;
+		public PendingEntry(String name, IModuleFile file) {
+			this.name = name;
+			this.file = file;
+			this.size = file == null ? 0 : getSize(file);
+		}
+		public boolean isBuffered() {
+			return size <= MAX_BUFFERED_ENTRY;
+		}
+	}
+
+	private static class DeflatedEntry {
+		private byte[] name;
+		private int flags = UTF8_FLAG;
+		private int method;
+		private int dosTime;
+		private long crc;
+		private long size;
+		private byte[] data;
+		private long compressedSize;
+		private long offset;
+		private Exception failure;
+		
+		public DeflatedEntry(PendingEntry pending) {
+			name = pending.name.getBytes(StandardCharsets.UTF_8);
+			if( pending.file == null ) {
+				method = STORED;
+				dosTime = toDosTime(System.currentTimeMillis());
+			} else {
+				method = DEFLATED;
+				dosTime = toDosTime(getLastModified(pending.file));
+			}
+		}
+	}
+
+	/*
+	 * Compress a module file into a stream, recording its size and checksum
+	 */
+	private static void deflate(IModuleFile file, DeflatedEntry e, OutputStream os) throws IOException, CoreException {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		CRC32 crc = new CRC32();
+		byte[] in = new byte[8192];
+		byte[] out = new byte[8192];
+		long size = 0;
+		InputStream is = openStream(file);
+		try {
+			int read;
+			while((read = is.read(in)) != -1) {
+				crc.update(in, 0, read);
+				size += read;
+				deflater.setInput(in, 0, read);
+				while( !deflater.needsInput()) {
+					int len = deflater.deflate(out);
+					os.write(out, 0, len);
+				}
+			}
+			deflater.finish();
+			while( !deflater.finished()) {
+				int len = deflater.deflate(out);
+				os.write(out, 0, len);
+			}
+		} finally {
+			is.close();
+			deflater.end();
+		}
+		e.crc = crc.getValue();
+		e.size = size;
+	}
+
+	/*
+	 * Reads and deflates a single entry into memory. A failure is 
+	 * returned with the entry, so the writer gets the original exception.
+	 */
+	private static class DeflateTask extends RecursiveTask<DeflatedEntry> {
+		private static final long serialVersionUID = 1L;
+		private PendingEntry pending;
+
+		public DeflateTask(PendingEntry pending) {
+			this.pending = pending;
+		}
+
+		@Override
+		protected DeflatedEntry compute() {
+			DeflatedEntry e = new DeflatedEntry(pending);
+			if( pending.file == null )
+				return e;
+			ByteArrayOutputStream baos = new ByteArrayOutputStream((int)pending.size + 64);
+			try {
+				deflate(pending.file, e, baos);
+				e.data = baos.toByteArray();
+				e.compressedSize = e.data.length;
+			} catch(IOException ioe) {
+				e.failure = ioe;
+			} catch(CoreException ce) {
+				e.failure = ce;
+			}
+			return e;
+		}
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count = 0;
+		public CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+}
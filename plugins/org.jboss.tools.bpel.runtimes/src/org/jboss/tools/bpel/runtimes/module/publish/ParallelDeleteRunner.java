@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module.publish;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+
+/**
+ * Deletes deployed paths through a filesystem controller,
+ * issuing up to a fixed number of deletes concurrently.
+ * With a parallelism of 1, the paths are deleted one at a 
+ * time on the calling thread.
+ */
+public class ParallelDeleteRunner {
+	private IFilesystemController controller;
+	private int parallelism;
+
+	public ParallelDeleteRunner(IFilesystemController controller, int parallelism) {
+		this.controller = controller;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Delete all of the given paths
+	 *
+	 * @param paths the paths to delete, as stored in the publish descriptor
+	 * @param monitor
+	 * @return one status per path, in the same order as the paths
+	 */
+	public IStatus[] delete(String[] paths, IProgressMonitor monitor) {
+		if( monitor == null )
+			monitor = new NullProgressMonitor();
+		IStatus[] results = new IStatus[paths.length];
+		if( paths.length == 0 )
+			return results;
+		if( parallelism == 1 || paths.length == 1 ) {
+			for( int i = 0; i < paths.length; i++ ) {
+				results[i] = monitor.isCanceled() ? Status.CANCEL_STATUS : deleteOne(paths[i]);
+				monitor.worked(1);
+			}
+			return results;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, paths.length));
+		try {
+			List<Future<IStatus>> futures = new ArrayList<Future<IStatus>>(paths.length);
+			for( int i = 0; i < paths.length; i++ ) {
+				final String path = paths[i];
+				futures.add(executor.submit(new Callable<IStatus>() {
+					public IStatus call() {
+						return deleteOne(path);
+					}
+				}));
+			}
+			for( int i = 0; i < futures.size(); i++ ) {
+				if( monitor.isCanceled()) {
+					futures.get(i).cancel(false);
+					results[i] = Status.CANCEL_STATUS;
+				} else {
+					results[i] = getResult(futures.get(i));
+				}
+				monitor.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	private IStatus deleteOne(String path) {
+		try {
+			IStatus s = controller.deleteResource(new Path(path), new NullProgressMonitor());
+			return s == null ? Status.OK_STATUS : s;
+		} catch(CoreException ce) {
+			return ce.getStatus();
+		}
+	}
+
+	private IStatus getResult(Future<IStatus> f) {
+		try {
+			return f.get();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		} catch(ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			return new Status(IStatus.ERROR, RuntimesPlugin.PLUGIN_ID, String.valueOf(cause.getMessage()), cause);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.module.publish;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
+import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+
+/**
+ * Publishes an exploded module by copying its files on a bounded pool of workers.
+ *
+ * Folders are created on the calling thread while the tree is walked, so every
+ * folder exists before any of its files are handed to a worker. When all workers
+ * are busy and the queue is full, the walking thread copies the next file itself,
+ * which keeps the number of outstanding copies bounded.
+ */
+public class ParallelPublishModuleRunner {
+	private IFilesystemController controller;
+	private IPath deployRoot;
+	private int parallelism;
+
+	public ParallelPublishModuleRunner(IFilesystemController controller, IPath deployRoot, int parallelism) {
+		this.controller = controller;
+		this.deployRoot = deployRoot;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Copy all members into the deploy root
+	 *
+	 * @param members
+	 * @param monitor
+	 * @return the status of each folder and file which was not published cleanly
+	 * @throws CoreException if the monitor was cancelled
+	 */
+	public IStatus[] fullPublish(IModuleResource[] members, IProgressMonitor monitor) throws CoreException {
+		if( monitor == null )
+			monitor = new NullProgressMonitor();
+		monitor.beginTask(NLS.bind("Publishing {0}", deployRoot.lastSegment()), countFiles(members) + 1); //$NON-NLS-1$
+		List<IStatus> results = new ArrayList<IStatus>();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(parallelism * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+		List<Future<IStatus>> pending = new ArrayList<Future<IStatus>>();
+		try {
+			results.add(controller.makeDirectoryIfRequired(deployRoot, new NullProgressMonitor()));
+			monitor.worked(1);
+			publishMembers(members, deployRoot, executor, pending, results, monitor);
+			for( Future<IStatus> f : pending ) {
+				results.add(getResult(f));
+				monitor.worked(1);
+			}
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+		if( monitor.isCanceled())
+			throw new CoreException(Status.CANCEL_STATUS);
+
+		List<IStatus> problems = new ArrayList<IStatus>();
+		for( IStatus s : results ) {
+			if( s != null && !s.isOK())
+				problems.add(s);
+		}
+		return problems.toArray(new IStatus[problems.size()]);
+	}
+
+	private void publishMembers(IModuleResource[] members, IPath folder, ThreadPoolExecutor executor,
+			List<Future<IStatus>> pending, List<IStatus> results, IProgressMonitor monitor) throws CoreException {
+		for( int i = 0; i < members.length; i++ ) {
+			if( monitor.isCanceled())
+				return;
+			IPath target = folder.append(members[i].getName());
+			if( members[i] instanceof IModuleFolder ) {
+				results.add(controller.makeDirectoryIfRequired(target, new NullProgressMonitor()));
+				publishMembers(((IModuleFolder)members[i]).members(), target, executor, pending, results, monitor);
+			} else if( members[i] instanceof IModuleFile ) {
+				pending.add(executor.submit(new CopyTask((IModuleFile)members[i], target)));
+			}
+		}
+	}
+
+	private IStatus getResult(Future<IStatus> f) {
+		try {
+			return f.get();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return new Status(IStatus.ERROR, RuntimesPlugin.PLUGIN_ID, ie.getMessage(), ie);
+		} catch(ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if( cause instanceof CoreException )
+				return ((CoreException)cause).getStatus();
+			return new Status(IStatus.ERROR, RuntimesPlugin.PLUGIN_ID, String.valueOf(cause.getMessage()), cause);
+		}
+	}
+
+	private static int countFiles(IModuleResource[] members) {
+		int count = 0;
+		for( int i = 0; i < members.length; i++ ) {
+			if( members[i] instanceof IModuleFolder )
+				count += countFiles(((IModuleFolder)members[i]).members());
+			else
+				count++;
+		}
+		return count;
+	}
+
+	private class CopyTask implements Callable<IStatus> {
+		private IModuleFile file;
+		private IPath target;
+
+		public CopyTask(IModuleFile file, IPath target) {
+			this.file = file;
+			this.target = target;
+		}
+
+		public IStatus call() throws Exception {
+			File source = BPELArchiveWriter.getFile(file);
+			if( source != null )
+				return controller.copyFile(source, target, new NullProgressMonitor());
+			// The controller only copies local files, so stage the content in a temporary one
+			File temp = File.createTempFile("bpel", ".part"); //$NON-NLS-1$ //$NON-NLS-2$
+			try {
+				InputStream is = BPELArchiveWriter.openStream(file);
+				try {
+					Files.copy(is, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				} finally {
+					is.close();
+				}
+				return controller.copyFile(temp, target, new NullProgressMonitor());
+			} finally {
+				temp.delete();
+			}
+		}
+	}
+}
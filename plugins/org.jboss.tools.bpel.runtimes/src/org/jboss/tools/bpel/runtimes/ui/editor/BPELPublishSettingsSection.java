@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.ui.editor;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.ui.forms.widgets.ExpandableComposite;
+import org.eclipse.ui.forms.widgets.FormToolkit;
+import org.eclipse.ui.forms.widgets.Section;
+import org.eclipse.wst.server.ui.editor.ServerEditorSection;
+import org.jboss.tools.bpel.runtimes.module.BPELPublishSettings;
+
+/**
+ * A server editor section for the settings which control
+ * how BPEL modules are published to this server.
+ */
+public class BPELPublishSettingsSection extends ServerEditorSection {
+	private Spinner parallelismSpinner;
+	private Spinner retainVersionsSpinner;
+	private Spinner retainDaysSpinner;
+	private PropertyChangeListener listener;
+	private boolean updating = false;
+
+	public BPELPublishSettingsSection() {
+	}
+
+	@Override
+	public void createSection(Composite parent) {
+		super.createSection(parent);
+		FormToolkit toolkit = getFormToolkit(parent.getDisplay());
+
+		Section section = toolkit.createSection(parent, ExpandableComposite.TWISTIE
+				| ExpandableComposite.TITLE_BAR | Section.DESCRIPTION | ExpandableComposite.FOCUS_TITLE);
+		section.setText(Messages.PublishSettingsSectionTitle);
+		section.setDescription(Messages.PublishSettingsSectionDescription);
+		section.setLayoutData(new GridData(GridData.FILL_HORIZONTAL | GridData.VERTICAL_ALIGN_FILL));
+
+		Composite composite = toolkit.createComposite(section);
+		composite.setLayout(new GridLayout(2, false));
+
+		parallelismSpinner = createSpinner(toolkit, composite, Messages.PublishParallelismLabel,
+				Messages.PublishParallelismTooltip, BPELPublishSettings.MAX_PUBLISH_PARALLELISM);
+		retainVersionsSpinner = createSpinner(toolkit, composite, Messages.RetainVersionsLabel,
+				Messages.RetainVersionsTooltip, 10000);
+		retainDaysSpinner = createSpinner(toolkit, composite, Messages.RetainDaysLabel,
+				Messages.RetainDaysTooltip, 3650);
+
+		toolkit.paintBordersFor(composite);
+		section.setClient(composite);
+
+		initialize();
+		addListeners();
+	}
+
+	private Spinner createSpinner(FormToolkit toolkit, Composite composite, String label, String tooltip, int max) {
+		toolkit.createLabel(composite, label);
+		Spinner spinner = new Spinner(composite, SWT.BORDER);
+		spinner.setMinimum(0);
+		spinner.setMaximum(max);
+		spinner.setToolTipText(tooltip);
+		spinner.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_BEGINNING));
+		return spinner;
+	}
+
+	protected void initialize() {
+		updating = true;
+		parallelismSpinner.setSelection(server.getAttribute(
+				BPELPublishSettings.PUBLISH_PARALLELISM, BPELPublishSettings.DEFAULT_PUBLISH_PARALLELISM));
+		retainVersionsSpinner.setSelection(server.getAttribute(
+				BPELPublishSettings.RETAIN_VERSIONS, BPELPublishSettings.DEFAULT_RETAIN_VERSIONS));
+		retainDaysSpinner.setSelection(server.getAttribute(
+				BPELPublishSettings.RETAIN_DAYS, BPELPublishSettings.DEFAULT_RETAIN_DAYS));
+		updating = false;
+	}
+
+	protected void addListeners() {
+		addModifyListener(parallelismSpinner, Messages.PublishParallelismCommand,
+				BPELPublishSettings.PUBLISH_PARALLELISM, BPELPublishSettings.DEFAULT_PUBLISH_PARALLELISM);
+		addModifyListener(retainVersionsSpinner, Messages.RetainVersionsCommand,
+				BPELPublishSettings.RETAIN_VERSIONS, BPELPublishSettings.DEFAULT_RETAIN_VERSIONS);
+		addModifyListener(retainDaysSpinner, Messages.RetainDaysCommand,
+				BPELPublishSettings.RETAIN_DAYS, BPELPublishSettings.DEFAULT_RETAIN_DAYS);
+		// Keep the widgets current when a command is undone
+		listener = new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent event) {
+				if( !updating && event.getPropertyName().startsWith(BPELPublishSettings.ATTRIBUTE_PREFIX))
+					initialize();
+			}
+		};
+		server.addPropertyChangeListener(listener);
+	}
+
+	private void addModifyListener(final Spinner spinner, final String label, final String key, final int defaultValue) {
+		spinner.addModifyListener(new ModifyListener() {
+			public void modifyText(ModifyEvent e) {
+				if( updating )
+					return;
+				updating = true;
+				execute(new SetServerAttributeCommand(server, label, key, spinner.getSelection(), defaultValue));
+				updating = false;
+			}
+		});
+	}
+
+	@Override
+	public void dispose() {
+		if( server != null && listener != null )
+			server.removePropertyChangeListener(listener);
+		super.dispose();
+	}
+}
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.ui.editor;
+
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Server editor messages.
+ */
+public final class Messages extends NLS {
+
+	private static final String BUNDLE_NAME = "org.jboss.tools.bpel.runtimes.ui.editor.messages"; //$NON-NLS-1$
+
+	private Messages() {
+	}
+
+	// publish settings section
+	public static String PublishSettingsSectionTitle;
+	public static String PublishSettingsSectionDescription;
+	public static String PublishParallelismLabel;
+	public static String PublishParallelismTooltip;
+	public static String PublishParallelismCommand;
+	public static String RetainVersionsLabel;
+	public static String RetainVersionsTooltip;
+	public static String RetainVersionsCommand;
+	public static String RetainDaysLabel;
+	public static String RetainDaysTooltip;
+	public static String RetainDaysCommand;
+
+	static {
+		// initialize resource bundle
+		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
+	}
+}
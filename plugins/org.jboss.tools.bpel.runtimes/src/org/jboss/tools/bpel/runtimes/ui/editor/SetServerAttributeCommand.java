@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.ui.editor;
+
+import org.eclipse.wst.server.core.IServerWorkingCopy;
+import org.eclipse.wst.server.ui.internal.command.ServerCommand;
+
+/**
+ * An undoable command which sets an integer attribute on a server
+ */
+public class SetServerAttributeCommand extends ServerCommand {
+	private String key;
+	private int value;
+	private int oldValue;
+	private int defaultValue;
+
+	public SetServerAttributeCommand(IServerWorkingCopy server, String label,
+			String key, int value, int defaultValue) {
+		super(server, label);
+		this.key = key;
+		this.value = value;
+		this.defaultValue = defaultValue;
+	}
+
+	public void execute() {
+		oldValue = server.getAttribute(key, defaultValue);
+		server.setAttribute(key, value);
+	}
+
+	public void undo() {
+		server.setAttribute(key, oldValue);
+	}
+}
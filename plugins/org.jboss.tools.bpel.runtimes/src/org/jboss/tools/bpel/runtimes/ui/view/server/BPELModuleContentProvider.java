@@ -1,5 +1,9 @@
 package org.jboss.tools.bpel.runtimes.ui.view.server;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.Viewer;
@@ -7,34 +11,57 @@ import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.ui.internal.view.servers.ModuleServer;
 import org.jboss.tools.bpel.runtimes.IBPELModuleFacetConstants;
-import org.jboss.tools.bpel.runtimes.module.BPELPublishController;
+import org.jboss.tools.bpel.runtimes.module.BPELDeployedVersion;
 import org.jboss.tools.bpel.runtimes.module.BPELPublishDescriptor;
 
 public class BPELModuleContentProvider implements ITreeContentProvider {
+	// The number of versions shown at a time, newest first
+	public static final int PAGE_SIZE = 50;
+	
 	public BPELModuleContentProvider() {
 	}
 	public Object[] getChildren(Object parentElement) {
 		if( parentElement instanceof ModuleServer ) {
-			IServer s = ((ModuleServer)parentElement).server;
-			IModule[] module = ((ModuleServer)parentElement).module;
-			IModule mod = module.length > 0 ? module[module.length-1] : null;
-			String typeId = mod.getModuleType().getId();
-			// https://jira.jboss.org/browse/JBIDE-7486
-			// if project was closed or deleted, mod.getProject() is null - ignore
-			if( mod != null && mod.getProject() != null &&
-				(
-					typeId.equals(IBPELModuleFacetConstants.JBT_BPEL_MODULE_TYPE) ||
-					typeId.equals(IBPELModuleFacetConstants.BPEL_MODULE_TYPE)
-				)
-			) {
+			IProject project = getBPELProject((ModuleServer)parentElement);
+			if( project != null ) {
 				// we have a bpel module deployed to a server. List the children
-				String[] versions = BPELPublishDescriptor.getDeployedPathsFromDescriptor(s, mod.getProject());
-				return wrap((ModuleServer)parentElement, versions);
+				return getPage((ModuleServer)parentElement, project, 0);
 			}
 		}
+		if( parentElement instanceof BPELOlderVersions ) {
+			BPELOlderVersions older = (BPELOlderVersions)parentElement;
+			return getPage(older.getModuleServer(), older.getProject(), older.getOffset());
+		}
 		return new Object[]{};
 	}
 	
+	private IProject getBPELProject(ModuleServer ms) {
+		IModule[] module = ms.module;
+		IModule mod = module.length > 0 ? module[module.length-1] : null;
+		// https://jira.jboss.org/browse/JBIDE-7486
+		// if project was closed or deleted, mod.getProject() is null - ignore
+		if( mod != null && mod.getProject() != null ) {
+			String typeId = mod.getModuleType().getId();
+			if( typeId.equals(IBPELModuleFacetConstants.JBT_BPEL_MODULE_TYPE) ||
+					typeId.equals(IBPELModuleFacetConstants.BPEL_MODULE_TYPE))
+				return mod.getProject();
+		}
+		return null;
+	}
+	
+	/*
+	 * One page of versions, followed by a node holding the older versions, if there are any
+	 */
+	private Object[] getPage(ModuleServer ms, IProject project, int offset) {
+		IServer s = ms.server;
+		BPELDeployedVersion[] page = BPELPublishDescriptor.getDeployedVersions(s, project, offset, PAGE_SIZE);
+		int remaining = BPELPublishDescriptor.getDeployedVersionCount(s, project) - offset - page.length;
+		List<Object> children = new ArrayList<Object>(Arrays.asList(wrap(ms, page)));
+		if( page.length == PAGE_SIZE && remaining > 0 )
+			children.add(new BPELOlderVersions(ms, project, offset + PAGE_SIZE, remaining));
+		return children.toArray();
+	}
+	
 	protected BPELVersionDeployment[] wrap(ModuleServer ms, String[] vals) {
 		BPELVersionDeployment[] versions = new BPELVersionDeployment[vals.length];
 		for( int i = 0; i < vals.length; i++ ) {
@@ -42,6 +69,45 @@ public class BPELModuleContentProvider implements ITreeContentProvider {
 		}
 		return versions;
 	}
+	
+	protected BPELVersionDeployment[] wrap(ModuleServer ms, BPELDeployedVersion[] vals) {
+		BPELVersionDeployment[] versions = new BPELVersionDeployment[vals.length];
+		for( int i = 0; i < vals.length; i++ ) {
+			versions[i] = new BPELVersionDeployment(ms, vals[i].getPath());
+		}
+		return versions;
+	}
+	
+	/**
+	 * A node standing for the versions older than the ones shown,
+	 * which are only listed when it is expanded
+	 */
+	public static class BPELOlderVersions {
+		private ModuleServer ms;
+		private IProject project;
+		private int offset;
+		private int count;
+		public BPELOlderVersions(ModuleServer ms, IProject project, int offset, int count) {
+			this.ms = ms;
+			this.project = project;
+			this.offset = offset;
+			this.count = count;
+		}
+		public ModuleServer getModuleServer() { return ms; }
+		public IProject getProject() { return project; }
+		public int getOffset() { return offset; }
+		public int getCount() { return count; }
+		// the viewer finds the node again by equality after a refresh
+		public boolean equals(Object obj) {
+			if( !(obj instanceof BPELOlderVersions))
+				return false;
+			BPELOlderVersions other = (BPELOlderVersions)obj;
+			return offset == other.offset && ms.equals(other.ms) && project.equals(other.project);
+		}
+		public int hashCode() {
+			return 31 * ms.hashCode() + offset;
+		}
+	}
 
 	public static class BPELVersionDeployment {
 		private String path;
@@ -65,7 +131,12 @@ public class BPELModuleContentProvider implements ITreeContentProvider {
 	}
 
 	public boolean hasChildren(Object element) {
-		return getChildren(element).length > 0;
+		if( element instanceof ModuleServer ) {
+			IProject project = getBPELProject((ModuleServer)element);
+			return project != null && BPELPublishDescriptor.getDeployedVersionCount(
+					((ModuleServer)element).server, project) > 0;
+		}
+		return element instanceof BPELOlderVersions;
 	}
 
 	public Object[] getElements(Object inputElement) {
@@ -2,9 +2,11 @@ package org.jboss.tools.bpel.runtimes.ui.view.server;
 
 import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.graphics.Image;
 import org.jboss.tools.bpel.runtimes.IRuntimesUIConstants;
 import org.jboss.tools.bpel.runtimes.RuntimesPlugin;
+import org.jboss.tools.bpel.runtimes.ui.view.server.BPELModuleContentProvider.BPELOlderVersions;
 import org.jboss.tools.bpel.runtimes.ui.view.server.BPELModuleContentProvider.BPELVersionDeployment;
 
 public class BPELModuleLabelProvider extends LabelProvider {
@@ -17,6 +19,9 @@ public class BPELModuleLabelProvider extends LabelProvider {
 		if( element instanceof BPELVersionDeployment ) {
 			return new Path(((BPELVersionDeployment)element).getPath()).lastSegment();
 		}
+		if( element instanceof BPELOlderVersions ) {
+			return NLS.bind(Messages.OlderVersionsLabel, ((BPELOlderVersions)element).getCount());
+		}
 		return null;
 	}
 }
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.ui.view.server;
+
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Servers view messages.
+ */
+public final class Messages extends NLS {
+
+	private static final String BUNDLE_NAME = "org.jboss.tools.bpel.runtimes.ui.view.server.messages"; //$NON-NLS-1$
+
+	private Messages() {
+	}
+
+	// deployed versions
+	public static String OlderVersionsLabel;
+
+	static {
+		// initialize resource bundle
+		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
+	}
+}
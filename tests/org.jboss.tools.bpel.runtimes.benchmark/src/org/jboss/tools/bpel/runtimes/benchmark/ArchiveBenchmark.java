@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.eclipse.wst.server.core.util.ModuleFolder;
+import org.jboss.tools.bpel.runtimes.module.publish.BPELArchiveWriter;
+import org.jboss.tools.bpel.runtimes.module.publish.ParallelArchiveWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures building the deployment archive of a synthetic module of N files.
+ * The archive is written to a stream which discards its content, so
+ * the results reflect compression and not the speed of the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ArchiveBenchmark {
+	private static final int FILES_PER_FOLDER = 50;
+	private static final int FILE_SIZE = 16 * 1024;
+	
+	@Param({ "10", "100", "1000" })
+	public int files;
+	
+	@Param({ "1", "4" })
+	public int parallelism;
+	
+	private File root;
+	private IModuleResource[] members;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("bpel-archive-benchmark").toFile(); //$NON-NLS-1$
+		List<IModuleResource> top = new ArrayList<IModuleResource>();
+		List<IModuleResource> folderMembers = null;
+		ModuleFolder folder = null;
+		for( int i = 0; i < files; i++ ) {
+			if( i % FILES_PER_FOLDER == 0 ) {
+				if( folder != null )
+					folder.setMembers(folderMembers.toArray(new IModuleResource[folderMembers.size()]));
+				String name = "schemas" + (i / FILES_PER_FOLDER); //$NON-NLS-1$
+				new File(root, name).mkdirs();
+				folder = new ModuleFolder(null, name, Path.EMPTY);
+				folderMembers = new ArrayList<IModuleResource>();
+				top.add(folder);
+			}
+			IPath relative = new Path(folder.getName());
+			String name = "Schema" + i + ".xsd"; //$NON-NLS-1$ //$NON-NLS-2$
+			File f = new File(new File(root, folder.getName()), name);
+			writeSchema(f, i);
+			folderMembers.add(new ModuleFile(f, name, relative));
+		}
+		if( folder != null )
+			folder.setMembers(folderMembers.toArray(new IModuleResource[folderMembers.size()]));
+		members = top.toArray(new IModuleResource[top.size()]);
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkServers.delete(root);
+	}
+	
+	@Benchmark
+	public long buildArchive() throws IOException, CoreException {
+		CountingOutputStream out = new CountingOutputStream();
+		BPELArchiveWriter writer = parallelism == 1 ? new BPELArchiveWriter(members) 
+				: new ParallelArchiveWriter(members, parallelism);
+		writer.write(out, null);
+		return out.count;
+	}
+	
+	/*
+	 * Schema-like content, so the compression ratio is realistic
+	 */
+	private static void writeSchema(File f, int index) throws IOException {
+		Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8"); //$NON-NLS-1$
+		try {
+			w.write("<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\">\n"); //$NON-NLS-1$
+			int written = 0;
+			for( int i = 0; written < FILE_SIZE; i++ ) {
+				String line = "  <xsd:element name=\"element" + index + "_" + i  //$NON-NLS-1$ //$NON-NLS-2$
+						+ "\" type=\"xsd:string\" minOccurs=\"0\"/>\n"; //$NON-NLS-1$
+				w.write(line);
+				written += line.length();
+			}
+			w.write("</xsd:schema>\n"); //$NON-NLS-1$
+		} finally {
+			w.close();
+		}
+	}
+	
+	private static class CountingOutputStream extends OutputStream {
+		private long count;
+		@Override
+		public void write(int b) {
+			count++;
+		}
+		@Override
+		public void write(byte[] b, int off, int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.benchmark;
+
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs all benchmarks in this bundle inside the running platform and
+ * writes the results as JSON to the file named by <code>jmh.result</code>.
+ * 
+ * Benchmarks cannot be forked, since a forked JVM would not have 
+ * the OSGi framework and the bundles under test.
+ */
+public class BenchmarkRunner extends TestCase {
+	
+	public void testRunBenchmarks() throws Exception {
+		Options options = new OptionsBuilder()
+			.include("org\\.jboss\\.tools\\.bpel\\.runtimes\\.benchmark\\..*") //$NON-NLS-1$
+			.forks(0)
+			.warmupIterations(Integer.getInteger("jmh.warmupIterations", 3)) //$NON-NLS-1$
+			.measurementIterations(Integer.getInteger("jmh.measurementIterations", 5)) //$NON-NLS-1$
+			.resultFormat(ResultFormatType.JSON)
+			.result(System.getProperty("jmh.result", "target/jmh-result.json")) //$NON-NLS-1$ //$NON-NLS-2$
+			.build();
+		Collection<RunResult> results = new Runner(options).run();
+		assertFalse(results.isEmpty());
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.benchmark;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.eclipse.wst.server.core.IServer;
+import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
+
+/**
+ * Creates lightweight servers for the benchmarks. Only the server id
+ * and attribute defaults are needed by the code under test, so there 
+ * is no need to create, save and start a real server.
+ */
+public class BenchmarkServers {
+	
+	private BenchmarkServers() {
+	}
+	
+	public static IServer createServer(final String id) {
+		return (IServer)Proxy.newProxyInstance(BenchmarkServers.class.getClassLoader(), 
+				new Class[] { IServer.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if( name.equals("getId") || name.equals("getName") || name.equals("toString")) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					return id;
+				if( name.equals("hashCode")) //$NON-NLS-1$
+					return id.hashCode();
+				if( name.equals("equals")) //$NON-NLS-1$
+					return proxy == args[0];
+				// attributes always have their default value
+				if( name.equals("getAttribute") && args.length == 2 ) //$NON-NLS-1$
+					return args[1];
+				Class<?> type = method.getReturnType();
+				if( type == boolean.class )
+					return Boolean.FALSE;
+				if( type == int.class )
+					return 0;
+				return null;
+			}
+		});
+	}
+	
+	/**
+	 * Delete everything stored in the state location of a benchmark server
+	 */
+	public static void dispose(IServer server) {
+		delete(JBossServerCorePlugin.getServerStateLocation(server).toFile());
+	}
+	
+	static void delete(File f) {
+		File[] children = f.listFiles();
+		if( children != null ) {
+			for( int i = 0; i < children.length; i++ )
+				delete(children[i]);
+		}
+		f.delete();
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.IServer;
+import org.jboss.tools.bpel.runtimes.module.BPELPublishDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link BPELPublishDescriptor} lookups and updates 
+ * for a project with a growing number of deployed versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DescriptorBenchmark {
+	
+	@Param({ "10", "100", "1000", "10000" })
+	public int versions;
+	
+	private IServer server;
+	private IProject project;
+	private IProject otherProject;
+	private int next;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		server = BenchmarkServers.createServer("bpel-benchmark-descriptor-" + versions); //$NON-NLS-1$
+		BenchmarkServers.dispose(server);
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("BenchmarkProcess"); //$NON-NLS-1$
+		otherProject = ResourcesPlugin.getWorkspace().getRoot().getProject("OtherProcess"); //$NON-NLS-1$
+		for( int i = 0; i < versions; i++ )
+			BPELPublishDescriptor.addDeployedPathToDescriptor(server, project, getVersionPath(i), "hash" + i); //$NON-NLS-1$
+		// a second project, so lookups have to find the right one
+		BPELPublishDescriptor.addDeployedPathToDescriptor(server, otherProject, getVersionPath(0), null);
+		next = versions;
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		// write pending changes now, so they are not written after the files are removed
+		BPELPublishDescriptor.flush();
+		BenchmarkServers.dispose(server);
+	}
+	
+	@Benchmark
+	public String[] getDeployedPaths() {
+		return BPELPublishDescriptor.getDeployedPathsFromDescriptor(server, project);
+	}
+	
+	@Benchmark
+	public String getLatestHash() {
+		return BPELPublishDescriptor.getLatestHashFromDescriptor(server, project);
+	}
+	
+	/*
+	 * Adds a version and removes it again, so the history keeps its size
+	 */
+	@Benchmark
+	public void addAndRemoveVersion() {
+		IPath path = getVersionPath(next++);
+		BPELPublishDescriptor.addDeployedPathToDescriptor(server, project, path, "hash"); //$NON-NLS-1$
+		BPELPublishDescriptor.removeVersionFromDescriptor(server, project, path.toOSString());
+	}
+	
+	private static IPath getVersionPath(int i) {
+		return new Path("/deploy/BenchmarkProcess-" + (20000000000000L + i) + ".jar"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.bpel.runtimes.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.bpel.model.Activity;
+import org.eclipse.bpel.model.BPELFactory;
+import org.eclipse.bpel.model.PartnerLink;
+import org.eclipse.bpel.model.PartnerLinks;
+import org.eclipse.bpel.model.Process;
+import org.eclipse.bpel.model.Scope;
+import org.eclipse.bpel.model.Sequence;
+import org.eclipse.emf.common.util.EList;
+import org.jboss.tools.bpel.runtimes.utils.BPELModelUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link BPELModelUtils#getScopePartnerLinks(org.eclipse.emf.ecore.EObject)}
+ * on synthetic processes with scopes nested to an increasing depth.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScopePartnerLinksBenchmark {
+	private static final int PARTNER_LINKS_PER_SCOPE = 2;
+	private static final int ACTIVITIES_PER_SCOPE = 5;
+	
+	@Param({ "1", "10", "100", "1000" })
+	public int depth;
+	
+	private Process process;
+	
+	@Setup
+	public void setUp() {
+		BPELFactory factory = BPELFactory.eINSTANCE;
+		process = factory.createProcess();
+		process.setName("BenchmarkProcess"); //$NON-NLS-1$
+		Activity body = null;
+		for( int i = depth - 1; i >= 0; i-- ) {
+			Scope scope = factory.createScope();
+			scope.setName("scope" + i); //$NON-NLS-1$
+			PartnerLinks links = factory.createPartnerLinks();
+			for( int j = 0; j < PARTNER_LINKS_PER_SCOPE; j++ ) {
+				PartnerLink link = factory.createPartnerLink();
+				link.setName("link" + i + "_" + j); //$NON-NLS-1$ //$NON-NLS-2$
+				links.getChildren().add(link);
+			}
+			scope.setPartnerLinks(links);
+			// some activities which are not scopes, so the traversal has to skip them
+			Sequence sequence = factory.createSequence();
+			for( int j = 0; j < ACTIVITIES_PER_SCOPE; j++ )
+				sequence.getActivities().add(factory.createEmpty());
+			if( body != null )
+				sequence.getActivities().add(body);
+			scope.setActivity(sequence);
+			body = scope;
+		}
+		process.setActivity(body);
+	}
+	
+	@Benchmark
+	public EList<PartnerLink> getScopePartnerLinks() {
+		return BPELModelUtils.getScopePartnerLinks(process);
+	}
+}
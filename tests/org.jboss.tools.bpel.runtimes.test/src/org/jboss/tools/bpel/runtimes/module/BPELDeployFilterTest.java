@@ -0,0 +1,134 @@
+package org.jboss.tools.bpel.runtimes.module;
+
+import org.eclipse.core.runtime.Path;
+
+import junit.framework.TestCase;
+
+public class BPELDeployFilterTest extends TestCase {
+
+	public void testDefaultExcludes() {
+		BPELDeployFilter filter = new BPELDeployFilter();
+		assertExcluded(filter, "HelloWorld.bpelex");
+		assertExcluded(filter, "processes/HelloWorld.bpelex");
+		assertExcluded(filter, ".deployignore");
+		assertExcluded(filter, "nested/.deployignore");
+		assertIncluded(filter, "HelloWorld.bpel");
+		assertIncluded(filter, "deploy.xml");
+		assertIncluded(filter, "processes/HelloWorld.wsdl");
+	}
+
+	public void testNameMatchesAtAnyDepth() {
+		BPELDeployFilter filter = filter("*.txt", "notes.md");
+		assertExcluded(filter, "readme.txt");
+		assertExcluded(filter, "a/b/c/readme.txt");
+		assertExcluded(filter, "notes.md");
+		assertExcluded(filter, "docs/notes.md");
+		assertIncluded(filter, "readme.txt.bak");
+		assertIncluded(filter, "mynotes.md");
+		assertIncluded(filter, "txt/readme.bpel");
+	}
+
+	public void testLeadingSlashAnchorsToRoot() {
+		BPELDeployFilter filter = filter("/build.xml", "/docs/*.html");
+		assertExcluded(filter, "build.xml");
+		assertIncluded(filter, "sub/build.xml");
+		assertExcluded(filter, "docs/index.html");
+		assertIncluded(filter, "docs/api/index.html");
+		assertIncluded(filter, "other/docs/index.html");
+	}
+
+	public void testPatternWithSlashIsRelativeToRoot() {
+		BPELDeployFilter filter = filter("test/*.xml");
+		assertExcluded(filter, "test/data.xml");
+		assertIncluded(filter, "src/test/data.xml");
+		assertIncluded(filter, "test/nested/data.xml");
+	}
+
+	public void testFolderPattern() {
+		BPELDeployFilter filter = filter("tmp/", "/out/");
+		assertExcluded(filter, "tmp/a.bpel");
+		assertExcluded(filter, "x/y/tmp/a.bpel");
+		assertExcluded(filter, "tmp/nested/a.bpel");
+		assertIncluded(filter, "tmp.bpel");
+		assertIncluded(filter, "mytmp/a.bpel");
+		assertExcluded(filter, "out/a.bpel");
+		assertIncluded(filter, "src/out/a.bpel");
+	}
+
+	public void testSingleStarDoesNotCrossFolders() {
+		BPELDeployFilter filter = filter("/gen/*");
+		assertExcluded(filter, "gen/a.wsdl");
+		assertIncluded(filter, "gen/sub/a.wsdl");
+	}
+
+	public void testDoubleStarCrossesFolders() {
+		BPELDeployFilter filter = filter("/gen/**", "schemas/**/*.xsd", "/a**z");
+		assertExcluded(filter, "gen/a.wsdl");
+		assertExcluded(filter, "gen/sub/deeper/a.wsdl");
+		assertExcluded(filter, "schemas/a.xsd");
+		assertExcluded(filter, "schemas/x/y/a.xsd");
+		assertIncluded(filter, "schemas/x/y/a.wsdl");
+		assertExcluded(filter, "a/b/z");
+		assertIncluded(filter, "b/a/z");
+	}
+
+	public void testQuestionMark() {
+		BPELDeployFilter filter = filter("/v?.bpel");
+		assertExcluded(filter, "v1.bpel");
+		assertIncluded(filter, "v10.bpel");
+		assertIncluded(filter, "v/.bpel");
+	}
+
+	public void testRegexCharactersAreLiteral() {
+		BPELDeployFilter filter = filter("a+b(1).bpel", "[x].wsdl", "c$.xml");
+		assertExcluded(filter, "a+b(1).bpel");
+		assertIncluded(filter, "aab1.bpel");
+		assertIncluded(filter, "a+b(1)xbpel");
+		assertExcluded(filter, "[x].wsdl");
+		assertIncluded(filter, "x.wsdl");
+		assertExcluded(filter, "c$.xml");
+	}
+
+	public void testLastMatchWins() {
+		BPELDeployFilter filter = filter("*.xml", "!deploy.xml", "/sub/deploy.xml");
+		assertExcluded(filter, "build.xml");
+		assertIncluded(filter, "deploy.xml");
+		assertIncluded(filter, "other/deploy.xml");
+		assertExcluded(filter, "sub/deploy.xml");
+	}
+
+	public void testNegationOverridesDefaults() {
+		BPELDeployFilter filter = filter("!/keep.bpelex");
+		assertIncluded(filter, "keep.bpelex");
+		assertExcluded(filter, "other.bpelex");
+	}
+
+	public void testCommentsAndBlankLines() {
+		BPELDeployFilter filter = filter("# *.bpel", "", "   ", "  *.log  ", "/", "!");
+		assertIncluded(filter, "HelloWorld.bpel");
+		assertIncluded(filter, "# a.bpel");
+		assertExcluded(filter, "server.log");
+		assertIncluded(filter, "a");
+	}
+
+	public void testAbsoluteModulePath() {
+		BPELDeployFilter filter = filter("/docs/");
+		assertExcluded(filter, "/docs/a.html");
+		assertIncluded(filter, "/src/a.html");
+	}
+
+	private static BPELDeployFilter filter(String... lines) {
+		BPELDeployFilter filter = new BPELDeployFilter();
+		for( int i = 0; i < lines.length; i++ )
+			filter.addPattern(lines[i]);
+		return filter;
+	}
+
+	private static void assertIncluded(BPELDeployFilter filter, String path) {
+		assertTrue(path + " should be deployed", filter.isIncluded(new Path(path)));
+	}
+
+	private static void assertExcluded(BPELDeployFilter filter, String path) {
+		assertFalse(path + " should not be deployed", filter.isIncluded(new Path(path)));
+	}
+}
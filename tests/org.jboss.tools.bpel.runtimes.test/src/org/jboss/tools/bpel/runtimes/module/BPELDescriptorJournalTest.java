@@ -0,0 +1,83 @@
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class BPELDescriptorJournalTest extends TestCase {
+	private File file;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("bpel.deployment", ".journal");
+		file.delete();
+	}
+
+	public void tearDown() throws Exception {
+		file.delete();
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws Exception {
+		String[] add = new String[] {BPELDescriptorJournal.ADD, "HelloWorld", "/deploy/HelloWorld-20260101120000.jar", "abc"};
+		String[] escaped = new String[] {BPELDescriptorJournal.ADD, "Tab\tNew\nLine\rBack\\slash", "/deploy/\u00e9t\u00e9.jar", null};
+		String[] remove = new String[] {BPELDescriptorJournal.REMOVE_PROJECT, "HelloWorld"};
+		BPELDescriptorJournal journal = new BPELDescriptorJournal(file);
+		journal.append(Arrays.asList(add, escaped));
+		journal.append(Collections.singletonList(remove));
+		assertEquals(3, journal.size());
+
+		List<String[]> read = new BPELDescriptorJournal(file).read();
+		assertEquals(3, read.size());
+		assertTrue(Arrays.equals(add, read.get(0)));
+		escaped[3] = "";
+		assertTrue(Arrays.equals(escaped, read.get(1)));
+		assertTrue(Arrays.equals(remove, read.get(2)));
+	}
+
+	public void testTornTailIsTruncatedOnRead() throws Exception {
+		write("A\tHelloWorld\t/deploy/a.jar\n", "A\tHello");
+		BPELDescriptorJournal journal = new BPELDescriptorJournal(file);
+		assertEquals(1, journal.read().size());
+		assertEquals("A\tHelloWorld\t/deploy/a.jar\n".length(), file.length());
+
+		journal.append(Collections.singletonList(new String[] {BPELDescriptorJournal.REMOVE, "HelloWorld", "/deploy/a.jar"}));
+		List<String[]> read = new BPELDescriptorJournal(file).read();
+		assertEquals(2, read.size());
+		assertTrue(Arrays.equals(new String[] {"R", "HelloWorld", "/deploy/a.jar"}, read.get(1)));
+	}
+
+	public void testTornTailIsTruncatedOnAppend() throws Exception {
+		write("A\tHelloWorld\t/deploy/a.jar\n", "A\tHelloWorld\t/dep");
+		new BPELDescriptorJournal(file).append(
+				Collections.singletonList(new String[] {BPELDescriptorJournal.ADD, "HelloWorld", "/deploy/b.jar"}));
+		List<String[]> read = new BPELDescriptorJournal(file).read();
+		assertEquals(2, read.size());
+		assertTrue(Arrays.equals(new String[] {"A", "HelloWorld", "/deploy/a.jar"}, read.get(0)));
+		assertTrue(Arrays.equals(new String[] {"A", "HelloWorld", "/deploy/b.jar"}, read.get(1)));
+	}
+
+	public void testOnlyTornLine() throws Exception {
+		write("A\tHello");
+		BPELDescriptorJournal journal = new BPELDescriptorJournal(file);
+		assertEquals(0, journal.read().size());
+		assertEquals(0, file.length());
+	}
+
+	private void write(String... parts) throws IOException {
+		OutputStream os = new FileOutputStream(file);
+		try {
+			for( int i = 0; i < parts.length; i++ )
+				os.write(parts[i].getBytes(StandardCharsets.UTF_8));
+		} finally {
+			os.close();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+public class BPELDescriptorReconcilerTest extends TestCase {
+
+	public void testVersionPatternIsAnchored() {
+		Pattern p = BPELDescriptorReconciler.getVersionPattern(Arrays.asList("Foo"));
+		assertTrue(p.matcher("Foo-20260101120000.jar").matches());
+		assertTrue(p.matcher("Foo-20260101120000").matches());
+		assertFalse(p.matcher("FooBar-20260101120000.jar").matches());
+		assertFalse(p.matcher("Foo-Bar-20260101120000.jar").matches());
+		assertFalse(p.matcher("xFoo-20260101120000.jar").matches());
+		assertFalse(p.matcher("Foo-2026010112.jar").matches());
+	}
+
+	public void testVersionPatternQuotesNames() {
+		Pattern p = BPELDescriptorReconciler.getVersionPattern(Arrays.asList("Foo.Bar", "a+b"));
+		assertTrue(p.matcher("Foo.Bar-20260101120000.jar").matches());
+		assertTrue(p.matcher("a+b-20260101120000.jar").matches());
+		assertFalse(p.matcher("FooxBar-20260101120000.jar").matches());
+		assertFalse(p.matcher("aab-20260101120000.jar").matches());
+	}
+}
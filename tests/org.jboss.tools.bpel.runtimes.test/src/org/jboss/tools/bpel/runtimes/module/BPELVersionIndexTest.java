@@ -0,0 +1,183 @@
+package org.jboss.tools.bpel.runtimes.module;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class BPELVersionIndexTest extends TestCase {
+	private File dir;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		dir = File.createTempFile("index", ".test");
+		dir.delete();
+		dir.mkdirs();
+	}
+
+	public void tearDown() throws Exception {
+		File[] children = dir.listFiles();
+		for( int i = 0; children != null && i < children.length; i++ )
+			children[i].delete();
+		dir.delete();
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws Exception {
+		BPELDeployedVersion[] hello = new BPELDeployedVersion[] {
+				new BPELDeployedVersion("/deploy/HelloWorld-20260101120000.jar", "abc", 100, 1000, 2000),
+				new BPELDeployedVersion("/deploy/HelloWorld-20260102120000.jar", null, BPELDeployedVersion.UNKNOWN, 3000, 4000),
+				new BPELDeployedVersion("/deploy/\u00e9t\u00e9-20260103120000.jar", "abc", 300, 5000, 6000)};
+		BPELDeployedVersion[] order = new BPELDeployedVersion[] {
+				new BPELDeployedVersion("/deploy/Order-20260101120000.jar", "def", 10, 1, 2)};
+		File file = new File(dir, "index");
+		BPELVersionIndex.Writer writer = new BPELVersionIndex.Writer(file);
+		writer.addProject("HelloWorld", Arrays.asList(hello));
+		writer.addProject("Empty", Arrays.<BPELDeployedVersion>asList());
+		writer.addProject("Order", Arrays.asList(order));
+		writer.write();
+		assertEquals(1, dir.listFiles().length);
+
+		BPELVersionIndex index = BPELVersionIndex.open(file);
+		assertEquals(4, index.getVersionCount());
+		assertEquals(2, index.getProjectNames().size());
+		assertEquals(0, index.getVersionCount("Empty"));
+		assertVersions(hello, index.getVersions("HelloWorld"));
+		assertVersions(order, index.getVersions("Order"));
+
+		assertVersion(hello[2], index.findVersion("HelloWorld", hello[2].getPath()));
+		assertVersion(hello[0], index.findVersion("HelloWorld", hello[0].getPath()));
+		assertNull(index.findVersion("HelloWorld", order[0].getPath()));
+		assertNull(index.findVersion("HelloWorld", "/deploy/HelloWorld-20260101120000.ja"));
+		assertNull(index.findVersion("Missing", hello[0].getPath()));
+
+		BPELVersionIndex.Cursor c = index.cursor("HelloWorld");
+		c.seek(1);
+		assertTrue(c.next());
+		assertEquals(hello[1].getPath(), c.getPath());
+		assertTrue(c.pathEquals(hello[1].getPath().getBytes("UTF-8")));
+		assertTrue(c.next());
+		assertFalse(c.next());
+	}
+
+	public void testCopyFromIndex() throws Exception {
+		BPELDeployedVersion[] hello = new BPELDeployedVersion[] {
+				new BPELDeployedVersion("/deploy/HelloWorld-20260101120000.jar", "abc", 100, 1000, 2000),
+				new BPELDeployedVersion("/deploy/HelloWorld-20260102120000.jar", null, 200, 3000, 4000)};
+		BPELDeployedVersion[] order = new BPELDeployedVersion[] {
+				new BPELDeployedVersion("/deploy/Order-20260101120000.jar", "def", 10, 1, 2)};
+		File first = new File(dir, "index.1");
+		BPELVersionIndex.Writer writer = new BPELVersionIndex.Writer(first);
+		writer.addProject("HelloWorld", Arrays.asList(hello));
+		writer.write();
+		BPELVersionIndex source = BPELVersionIndex.open(first);
+
+		File second = new File(dir, "index.2");
+		writer = new BPELVersionIndex.Writer(second);
+		writer.addProject("Order", Arrays.asList(order));
+		writer.addProject("HelloWorld", source.cursor("HelloWorld"));
+		writer.addProject("Missing", source.cursor("Missing"));
+		writer.write();
+
+		BPELVersionIndex index = BPELVersionIndex.open(second);
+		assertEquals(3, index.getVersionCount());
+		assertVersions(hello, index.getVersions("HelloWorld"));
+		assertVersions(order, index.getVersions("Order"));
+	}
+
+	public void testStringsAreShared() throws Exception {
+		BPELDeployedVersion[] hello = new BPELDeployedVersion[] {
+				new BPELDeployedVersion("/deploy/HelloWorld-20260101120000.jar", "abc", 100, 1000, 2000),
+				new BPELDeployedVersion("/deploy/HelloWorld-20260102120000.jar", "abc", 200, 3000, 4000)};
+		File first = new File(dir, "index.1");
+		BPELVersionIndex.Writer writer = new BPELVersionIndex.Writer(first);
+		writer.addProject("HelloWorld", Arrays.asList(hello));
+		writer.addProject("abc", Arrays.asList(new BPELDeployedVersion("/deploy/abc-20260101120000.jar", "abc")));
+		writer.write();
+		// HelloWorld, two HelloWorld paths, abc, one abc path
+		assertEquals(5, ByteBuffer.wrap(Files.readAllBytes(first.toPath())).getInt(16));
+
+		File second = new File(dir, "index.2");
+		writer = new BPELVersionIndex.Writer(second);
+		writer.addProject("HelloWorld", BPELVersionIndex.open(first).cursor("HelloWorld"));
+		writer.addProject("Order", Arrays.asList(new BPELDeployedVersion("/deploy/Order-20260101120000.jar", "abc")));
+		writer.write();
+		// HelloWorld, two HelloWorld paths, abc, Order, one Order path
+		assertEquals(6, ByteBuffer.wrap(Files.readAllBytes(second.toPath())).getInt(16));
+		assertVersions(hello, BPELVersionIndex.open(second).getVersions("HelloWorld"));
+	}
+
+	public void testAbortRemovesFiles() throws Exception {
+		File file = new File(dir, "index");
+		BPELVersionIndex.Writer writer = new BPELVersionIndex.Writer(file);
+		writer.addProject("HelloWorld", Arrays.asList(
+				new BPELDeployedVersion("/deploy/HelloWorld-20260101120000.jar", "abc")));
+		writer.abort();
+		assertEquals(0, dir.listFiles().length);
+	}
+
+	public void testCorruptIndex() throws Exception {
+		File file = new File(dir, "index");
+		BPELVersionIndex.Writer writer = new BPELVersionIndex.Writer(file);
+		writer.addProject("HelloWorld", Arrays.asList(
+				new BPELDeployedVersion("/deploy/HelloWorld-20260101120000.jar", "abc", 1, 2, 3)));
+		writer.write();
+		byte[] valid = Files.readAllBytes(file.toPath());
+		// header, one version, one project, 3 string offsets
+		int projectTable = 32 + 32;
+		int stringTable = projectTable + 12;
+
+		assertCorrupt(valid, 0, 0x12345678);
+		assertCorrupt(valid, 4, 2);
+		assertCorrupt(valid, 8, 5);
+		assertCorrupt(valid, 16, 1000);
+		// a project whose versions lie outside the version table
+		assertCorrupt(valid, projectTable + 8, 2);
+		assertCorrupt(valid, projectTable + 4, -1);
+		// a project name outside the string data
+		assertCorrupt(valid, stringTable, 1 << 20);
+		// the last string outside the file
+		assertCorrupt(valid, stringTable + 8, valid.length);
+
+		for( int length = 0; length < valid.length; length += 7 )
+			assertCorrupt(Arrays.copyOf(valid, length), "truncated." + length);
+	}
+
+	/*
+	 * Overwrite one int of a valid index and check that the result can not be opened
+	 */
+	private void assertCorrupt(byte[] valid, int offset, int value) throws IOException {
+		ByteBuffer corrupt = ByteBuffer.wrap(valid.clone());
+		corrupt.putInt(offset, value);
+		assertCorrupt(corrupt.array(), "corrupt." + offset);
+	}
+
+	private void assertCorrupt(byte[] content, String name) throws IOException {
+		File file = new File(dir, name);
+		Files.write(file.toPath(), content);
+		try {
+			BPELVersionIndex.open(file);
+			fail("A corrupt index was opened: " + name);
+		} catch(IOException ioe) {
+			// expected
+		}
+	}
+
+	private static void assertVersions(BPELDeployedVersion[] expected, BPELDeployedVersion[] actual) {
+		assertEquals(expected.length, actual.length);
+		for( int i = 0; i < expected.length; i++ )
+			assertVersion(expected[i], actual[i]);
+	}
+
+	private static void assertVersion(BPELDeployedVersion expected, BPELDeployedVersion actual) {
+		assertNotNull(actual);
+		assertEquals(expected.getPath(), actual.getPath());
+		assertEquals(expected.getHash(), actual.getHash());
+		assertEquals(expected.getSize(), actual.getSize());
+		assertEquals(expected.getPublishStart(), actual.getPublishStart());
+		assertEquals(expected.getPublishEnd(), actual.getPublishEnd());
+	}
+}
@@ -0,0 +1,133 @@
+package org.jboss.tools.bpel.runtimes.module.publish;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.eclipse.wst.server.core.util.ModuleFolder;
+
+import junit.framework.TestCase;
+
+public class ParallelArchiveWriterTest extends TestCase {
+	private File dir;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		dir = File.createTempFile("archive", ".test");
+		dir.delete();
+		dir.mkdirs();
+	}
+
+	public void tearDown() throws Exception {
+		delete(dir);
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws Exception {
+		byte[] small = "<process name=\"HelloWorld\"/>".getBytes("UTF-8");
+		byte[] large = new byte[(int)ParallelArchiveWriter.MAX_BUFFERED_ENTRY + 4096];
+		new Random(1).nextBytes(large);
+		ModuleFolder folder = new ModuleFolder(null, "wsdl", Path.EMPTY);
+		folder.setMembers(new IModuleResource[] {
+				createFile("a.wsdl", new Path("wsdl"), small)});
+		IModuleResource[] members = new IModuleResource[] {
+				createFile("deploy.xml", Path.EMPTY, small),
+				folder,
+				createFile("large.bin", Path.EMPTY, large),
+				createFile("HelloWorld.bpel", Path.EMPTY, small)};
+
+		File dest = new File(dir, "HelloWorld.jar");
+		IStatus status = new ParallelArchiveWriter(members, 4).writeTo(dest, null);
+		assertTrue(status.getMessage(), status.isOK());
+
+		ZipFile zip = new ZipFile(dest);
+		try {
+			assertEquals(5, zip.size());
+			assertTrue(zip.getEntry("wsdl/").isDirectory());
+			assertTrue(Arrays.equals(small, read(zip, "deploy.xml")));
+			assertTrue(Arrays.equals(small, read(zip, "wsdl/a.wsdl")));
+			assertTrue(Arrays.equals(large, read(zip, "large.bin")));
+			assertTrue(Arrays.equals(small, read(zip, "HelloWorld.bpel")));
+		} finally {
+			zip.close();
+		}
+	}
+
+	public void testFailedEntryReportsError() throws Exception {
+		byte[] content = "<deploy/>".getBytes("UTF-8");
+		IModuleResource[] members = new IModuleResource[] {
+				createFile("deploy.xml", Path.EMPTY, content),
+				new ModuleFile(new File(dir, "missing.bpel"), "missing.bpel", Path.EMPTY),
+				createFile("HelloWorld.bpel", Path.EMPTY, content)};
+
+		File dest = new File(dir, "HelloWorld.jar");
+		IStatus status = new ParallelArchiveWriter(members, 4).writeTo(dest, null);
+		assertEquals(IStatus.ERROR, status.getSeverity());
+		assertFalse(dest.exists());
+		assertFalse(new File(dir, ".HelloWorld.jar.part").exists());
+	}
+
+	public void testFailureKeepsPreviousArchive() throws Exception {
+		byte[] content = "<deploy/>".getBytes("UTF-8");
+		File dest = new File(dir, "HelloWorld.jar");
+		IStatus status = new ParallelArchiveWriter(new IModuleResource[] {
+				createFile("deploy.xml", Path.EMPTY, content)}, 2).writeTo(dest, null);
+		assertTrue(status.isOK());
+		long length = dest.length();
+
+		status = new ParallelArchiveWriter(new IModuleResource[] {
+				createFile("deploy.xml", Path.EMPTY, content),
+				new ModuleFile(new File(dir, "missing.bpel"), "missing.bpel", Path.EMPTY)}, 2).writeTo(dest, null);
+		assertEquals(IStatus.ERROR, status.getSeverity());
+		assertEquals(length, dest.length());
+		assertFalse(new File(dir, ".HelloWorld.jar.part").exists());
+	}
+
+	private ModuleFile createFile(String name, IPath path, byte[] content) throws IOException {
+		File folder = new File(new File(dir, "src"), path.toOSString());
+		folder.mkdirs();
+		File f = new File(folder, name);
+		OutputStream os = new FileOutputStream(f);
+		try {
+			os.write(content);
+		} finally {
+			os.close();
+		}
+		return new ModuleFile(f, name, path);
+	}
+
+	private static byte[] read(ZipFile zip, String name) throws IOException {
+		ZipEntry entry = zip.getEntry(name);
+		assertNotNull(name, entry);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		InputStream is = zip.getInputStream(entry);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = is.read(buffer)) != -1)
+				baos.write(buffer, 0, read);
+		} finally {
+			is.close();
+		}
+		return baos.toByteArray();
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		for( int i = 0; children != null && i < children.length; i++ )
+			delete(children[i]);
+		f.delete();
+	}
+}
@@ -0,0 +1,27 @@
+package org.jboss.tools.bpel.runtimes.test;
+
+import org.jboss.tools.bpel.runtimes.module.BPELDeployFilterTest;
+import org.jboss.tools.bpel.runtimes.module.BPELDescriptorJournalTest;
+import org.jboss.tools.bpel.runtimes.module.BPELDescriptorReconcilerTest;
+import org.jboss.tools.bpel.runtimes.module.BPELVersionIndexTest;
+import org.jboss.tools.bpel.runtimes.module.publish.ParallelArchiveWriterTest;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+
+public class BPELRuntimesAllTests extends TestCase {
+	public static final String PLUGIN_ID = "org.jboss.tools.bpel.runtimes.test";
+	public static Test suite ()
+	{
+		TestSuite suite = new TestSuite(BPELRuntimesAllTests.class.getName());
+	
+		suite.addTestSuite(ParallelArchiveWriterTest.class);
+		suite.addTestSuite(BPELDescriptorJournalTest.class);
+		suite.addTestSuite(BPELVersionIndexTest.class);
+		suite.addTestSuite(BPELDescriptorReconcilerTest.class);
+		suite.addTestSuite(BPELDeployFilterTest.class);
+		return suite;
+	}
+}